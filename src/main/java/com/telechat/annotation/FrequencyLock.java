@@ -3,7 +3,9 @@ package com.telechat.annotation;
 import java.lang.annotation.*;
 import java.util.concurrent.TimeUnit;
 /**
-* 防止重复操作的锁
+* 防止重复操作的锁 / 限流
+* <p>LOCK 为分布式锁 (同一时刻只允许一个请求执行，适合需要互斥的处理)；
+* SLIDING_WINDOW、TOKEN_BUCKET 为限流 (一次 Lua 脚本往返决定放行或拒绝，不加锁)</p>
 * */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -13,21 +15,44 @@ public @interface FrequencyLock {
     /**
      * 锁的 Key，支持 SpEL 表达式
      * 例如："'apply:' + #userId" 或 "'handle:' + #dto.id"
+     * 为空时使用 类名.方法名 (按接口限流)
      */
-    String key();
+    String key() default "";
+
+    /**
+     * 模式，默认 LOCK (兼容原有用法)
+     */
+    Mode mode() default Mode.LOCK;
+
+    /**
+     * 是否在 Key 后追加当前登录用户ID (未登录时为客户端 IP)，按用户限流
+     */
+    boolean perUser() default false;
 
     /**
      * 锁等待时间，默认 0 (立即失败，Fail-Fast模式)
      * 如果设置为 > 0，则会阻塞等待直到获取锁或超时
+     * 仅 LOCK 模式
      */
     long waitTime() default 0;
 
     /**
      * 锁自动释放时间，默认 10 秒
      * 如果使用 Redisson 的看门狗机制，可以忽略此项（设为 -1）
+     * 仅 LOCK 模式
      */
     long leaseTime() default 10;
 
+    /**
+     * 窗口内允许的请求数 (SLIDING_WINDOW) / 令牌桶容量 (TOKEN_BUCKET)
+     */
+    int limit() default 1;
+
+    /**
+     * 窗口长度 (SLIDING_WINDOW) / 令牌桶从空到满的时间 (TOKEN_BUCKET)，单位为 unit
+     */
+    long window() default 1;
+
     /**
      * 时间单位
      */
@@ -37,4 +62,13 @@ public @interface FrequencyLock {
      * 获取锁失败的错误提示信息
      */
     String msg() default "操作过于频繁，请稍后再试";
+
+    enum Mode {
+        // Redisson 分布式锁
+        LOCK,
+        // 滑动窗口：任意 window 时长内最多 limit 次
+        SLIDING_WINDOW,
+        // 令牌桶：允许突发 limit 次，之后按 limit / window 的速率恢复
+        TOKEN_BUCKET
+    }
 }
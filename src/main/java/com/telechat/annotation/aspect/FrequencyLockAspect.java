@@ -1,8 +1,10 @@
 package com.telechat.annotation.aspect;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.telechat.annotation.FrequencyLock;
 import com.telechat.constant.ExceptionConstant;
-import com.telechat.exception.exceptions.ContactException;
+import com.telechat.constant.RedisConstant;
 import com.telechat.exception.exceptions.FrequencyException;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -15,14 +17,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.StandardReflectionParameterNameDiscoverer;
 import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Aspect
@@ -30,17 +45,83 @@ import java.lang.reflect.Method;
 @Order(1)
 public class FrequencyLockAspect {
 
+    // 滑动窗口：ZSET 记录窗口内放行的请求 (score 为时间戳毫秒)，先清理窗口外的记录，未满则记录本次并放行
+    // KEYS: 限流 Key；ARGV: 当前时间戳毫秒, 窗口毫秒, 上限, 本次请求的 member
+    private static final DefaultRedisScript<Long> SLIDING_WINDOW_SCRIPT;
+
+    // 令牌桶：HASH 保存剩余令牌与上次更新时间，按经过的时间补充令牌，够 1 个则扣减并放行
+    // 过期时间为桶从空到满的时间，过期即视为满桶
+    // KEYS: 限流 Key；ARGV: 当前时间戳毫秒, 从空到满的毫秒数, 容量
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT;
+
+    static {
+        SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>();
+        SLIDING_WINDOW_SCRIPT.setScriptText(
+                "local now = tonumber(ARGV[1]) " +
+                "local window = tonumber(ARGV[2]) " +
+                "redis.call('zremrangebyscore', KEYS[1], '-inf', now - window) " +
+                "if redis.call('zcard', KEYS[1]) >= tonumber(ARGV[3]) then return 0 end " +
+                "redis.call('zadd', KEYS[1], now, ARGV[4]) " +
+                "redis.call('pexpire', KEYS[1], window) " +
+                "return 1");
+        SLIDING_WINDOW_SCRIPT.setResultType(Long.class);
+
+        TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>();
+        TOKEN_BUCKET_SCRIPT.setScriptText(
+                "local now = tonumber(ARGV[1]) " +
+                "local window = tonumber(ARGV[2]) " +
+                "local capacity = tonumber(ARGV[3]) " +
+                "local bucket = redis.call('hmget', KEYS[1], 'tokens', 'ts') " +
+                "local tokens = tonumber(bucket[1]) " +
+                "local ts = tonumber(bucket[2]) " +
+                "if tokens == nil or ts == nil then tokens = capacity ts = now end " +
+                "tokens = math.min(capacity, tokens + math.max(now - ts, 0) * capacity / window) " +
+                "local allowed = 0 " +
+                "if tokens >= 1 then tokens = tokens - 1 allowed = 1 end " +
+                "redis.call('hset', KEYS[1], 'tokens', tostring(tokens), 'ts', ARGV[1]) " +
+                "redis.call('pexpire', KEYS[1], window) " +
+                "return allowed");
+        TOKEN_BUCKET_SCRIPT.setResultType(Long.class);
+    }
+
     @Autowired
     private RedissonClient redissonClient;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
     private final ExpressionParser parser = new SpelExpressionParser();
 
     // 修复：使用标准反射发现器
     private final ParameterNameDiscoverer discoverer = new StandardReflectionParameterNameDiscoverer();
 
+    // 解析后的 SpEL 表达式 (表达式是线程安全的，每个注解只解析一次)
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    // 本地预检：每个限流 Key 在当前固定窗口内、本节点已放行的请求数
+    // 固定窗口落在滑动窗口之内，本节点放行数已达上限时全局一定也已达上限，直接拒绝，不访问 Redis
+    private final Cache<String, LocalWindow> localWindows = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
     @Around("@annotation(frequencyLock)")
     public Object around(ProceedingJoinPoint joinPoint, FrequencyLock frequencyLock) throws Throwable {
-        String lockKey = parseSpelKey(joinPoint, frequencyLock.key());
+        String key = frequencyLock.key().isEmpty() ? endpointKey(joinPoint) : parseSpelKey(joinPoint, frequencyLock.key());
+        if (frequencyLock.perUser()) {
+            key = key + ":" + currentCaller();
+        }
+        if (frequencyLock.mode() == FrequencyLock.Mode.LOCK) {
+            return aroundLock(joinPoint, frequencyLock, key);
+        }
+        if (!tryAcquire(frequencyLock, RedisConstant.RATE_LIMIT + key)) {
+            log.warn("频率限制: key={}, mode={}", key, frequencyLock.mode());
+            throw new FrequencyException(ExceptionConstant.TOO_BUSY_CODE, frequencyLock.msg());
+        }
+        return joinPoint.proceed();
+    }
+
+    private Object aroundLock(ProceedingJoinPoint joinPoint, FrequencyLock frequencyLock, String lockKey) throws Throwable {
         RLock lock = redissonClient.getLock(lockKey);
 
         boolean isLocked = false;
@@ -64,6 +145,65 @@ public class FrequencyLockAspect {
         }
     }
 
+    /**
+     * 限流：先本地预检，再执行一次 Lua 脚本
+     *
+     * @return true 放行 false 拒绝
+     */
+    private boolean tryAcquire(FrequencyLock frequencyLock, String key) {
+        long windowMs = Math.max(frequencyLock.unit().toMillis(frequencyLock.window()), 1);
+        int limit = frequencyLock.limit();
+        // 任意一个窗口时长内最多放行的请求数：滑动窗口为 limit，令牌桶为满桶 limit 加上窗口内补充的 limit
+        int localBound = frequencyLock.mode() == FrequencyLock.Mode.TOKEN_BUCKET ? limit * 2 : limit;
+
+        long now = System.currentTimeMillis();
+        long windowStart = now - now % windowMs;
+        LocalWindow local = localWindows.asMap().compute(key,
+                (k, current) -> current == null || current.start != windowStart ? new LocalWindow(windowStart) : current);
+        if (local.allowed.get() >= localBound) {
+            return false;
+        }
+
+        Long allowed;
+        if (frequencyLock.mode() == FrequencyLock.Mode.SLIDING_WINDOW) {
+            // member 需要唯一，同一毫秒的多个请求分别计数
+            String member = now + "-" + ThreadLocalRandom.current().nextLong();
+            allowed = stringRedisTemplate.execute(SLIDING_WINDOW_SCRIPT, List.of(key),
+                    String.valueOf(now), String.valueOf(windowMs), String.valueOf(limit), member);
+        } else {
+            allowed = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(key),
+                    String.valueOf(now), String.valueOf(windowMs), String.valueOf(limit));
+        }
+        if (allowed != null && allowed == 1) {
+            local.allowed.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 未指定 Key 时按接口限流
+     */
+    private String endpointKey(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        return signature.getDeclaringType().getSimpleName() + "." + signature.getName();
+    }
+
+    /**
+     * 当前登录用户ID，未登录时为客户端 IP
+     */
+    private String currentCaller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Long userId) {
+            return userId.toString();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest().getRemoteAddr();
+        }
+        return "anonymous";
+    }
+
     private String parseSpelKey(ProceedingJoinPoint joinPoint, String keyExpression) {
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
         Method method = signature.getMethod();
@@ -87,8 +227,17 @@ public class FrequencyLockAspect {
             context.setVariable(paramNames[i], args[i]);
         }
 
-        Expression expression = parser.parseExpression(keyExpression);
+        Expression expression = expressions.computeIfAbsent(keyExpression, parser::parseExpression);
         Object value = expression.getValue(context);
         return value != null ? value.toString() : "";
     }
-}
\ No newline at end of file
+
+    private static final class LocalWindow {
+        final long start;
+        final AtomicInteger allowed = new AtomicInteger();
+
+        LocalWindow(long start) {
+            this.start = start;
+        }
+    }
+}
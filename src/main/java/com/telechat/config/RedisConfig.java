@@ -5,12 +5,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.telechat.properties.CacheProperties;
+import com.telechat.util.CompactCacheRedisSerializer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
@@ -18,7 +22,8 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 public class RedisConfig {
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       CacheProperties cacheProperties) {
         log.info("开始创建redis模板对象...");
         RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
         // 设置redis的连接工厂对象
@@ -45,14 +50,19 @@ public class RedisConfig {
         // 2. 使用自定义的 ObjectMapper 创建序列化器
         GenericJackson2JsonRedisSerializer jsonRedisSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
 
+        // 缓存对象 (pojo.cache) 使用紧凑二进制格式，其余类型及旧数据仍走 JSON
+        // 回滚为 json 时只停止写二进制，已写入的二进制记录仍可读取
+        RedisSerializer<Object> valueSerializer = new CompactCacheRedisSerializer(jsonRedisSerializer,
+                !"json".equalsIgnoreCase(cacheProperties.getValueSerializer()));
+
         // 3. 设置序列化器
         // Key 采用 String 序列化
         redisTemplate.setKeySerializer(new StringRedisSerializer());
         redisTemplate.setHashKeySerializer(new StringRedisSerializer()); // HashKey 通常也是 String
 
-        // Value 采用自定义的 JSON 序列化
-        redisTemplate.setValueSerializer(jsonRedisSerializer);
-        redisTemplate.setHashValueSerializer(jsonRedisSerializer);
+        // Value 采用缓存对象二进制 + 自定义的 JSON 序列化
+        redisTemplate.setValueSerializer(valueSerializer);
+        redisTemplate.setHashValueSerializer(valueSerializer);
 
         // 初始化RedisTemplate
         redisTemplate.afterPropertiesSet();
@@ -60,4 +70,14 @@ public class RedisConfig {
         log.info("redis模板对象创建完成");
         return redisTemplate;
     }
+
+    /**
+     * Redis 发布订阅监听容器 (跨节点消息路由等场景使用)
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package com.telechat.config;
 
+import com.telechat.constant.MessageConstant;
 import com.telechat.security.JwtAuthenticationFilter;
 import com.telechat.security.JwtTokenProvider;
+import com.telechat.security.TokenRevocationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,6 +21,8 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.util.Set;
+
 
 @Configuration
 @EnableWebSecurity
@@ -26,9 +31,16 @@ public class SecurityConfig {
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @Autowired
     private CorsConfigurationSource corsConfigurationSource;
 
+    // 管理员用户ID，逗号分隔；为空时运维接口 (/monitor/**) 对所有人关闭
+    @Value("${telechat.security.admin-user-ids:}")
+    private Set<Long> adminUserIds;
+
 
     // 定义不需要JWT验证的路径
     private static final String[] EXCLUDE_URLS = {
@@ -40,6 +52,7 @@ public class SecurityConfig {
             "/user/sendVerifyCode",
             "/user/register",
             "/user/login",
+            "/user/refresh",
             "/ws/**",
 
     };
@@ -63,12 +76,20 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() // 允许所有OPTIONS请求
                         // 允许公开访问的端点
                         .requestMatchers(EXCLUDE_URLS).permitAll()
+                        // 运维接口 (在线用户、会话、缓存统计) 只对管理员开放
+                        .requestMatchers("/monitor/**").hasRole(MessageConstant.ADMIN_ROLE)
                         // 其他所有请求都需要认证
                         .anyRequest().authenticated()
                 )
-                // 添加JWT认证过滤器
-                .addFilterBefore(new JwtAuthenticationFilter(jwtTokenProvider), UsernamePasswordAuthenticationFilter.class);
+                // 添加JWT认证过滤器 (公开路径直接跳过)
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
+
+    private JwtAuthenticationFilter jwtAuthenticationFilter() {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtTokenProvider, tokenRevocationRegistry, EXCLUDE_URLS);
+        filter.setAdminUserIds(Set.copyOf(adminUserIds));
+        return filter;
+    }
 }
\ No newline at end of file
@@ -48,6 +48,12 @@ public class ExceptionConstant {
     public static final Integer SERVER_ERROR_CODE = 500;
     public static final String SERVER_ERROR_MSG = "服务器错误";
 
+    public static final String MESSAGE_EMPTY_MSG = "消息内容不能为空";
+    public static final String MESSAGE_TOO_LONG_MSG = "消息内容过长";
+    public static final String GROUP_TITLE_EMPTY_MSG = "群聊名称不能为空";
+    public static final String GROUP_MEMBER_EMPTY_MSG = "群聊至少需要邀请一名成员";
+    public static final String GROUP_MEMBER_TOO_MANY_MSG = "群聊成员数量超出上限";
+
     public static Integer Judge_Query_Exception_Code = 130;
     public static String Judge_Query_Exception_MSG = "参数校验错误";
 
@@ -71,6 +77,8 @@ public class ExceptionConstant {
     public static final String NOT_ALLOWED_MSG = "未允许";
     public static final String CONTACT_NOT_ALLOWED_MSG = "不允许操作该联系申请";
     public static final String NOT_ALLOWED_SEND_APPLY_MYSELF = "不允许添加自己为好友";
+    public static final String NOT_CONVERSATION_MEMBER_MSG = "你不是该会话的成员";
+    public static final String CONVERSATION_NOT_AVAILABLE_MSG = "该会话已失效";
 
 
     /**
@@ -81,6 +89,8 @@ public class ExceptionConstant {
     public static final String CONTACT_NOT_EXIST_MSG = "联系不存在";
     public static final String USER_NOT_EXIST_MSG = "该联系人不存在";
     public static final String CONVERSATION_NOT_EXIST_MSG = "联系人对应的会话不存在";
+    public static final String CHAT_CONVERSATION_NOT_EXIST_MSG = "会话不存在";
+    public static final String GROUP_MEMBER_NOT_EXIST_MSG = "邀请的用户不存在";
 
 
     /**
@@ -89,6 +99,8 @@ public class ExceptionConstant {
      *
      */
     public static final Integer USER_NOT_LOGIN_ERROR_CODE = 101;
+    public static final String REFRESH_TOKEN_INVALID_MSG = "登录已过期，请重新登录";
+    public static final String REFRESH_TOKEN_REUSED_MSG = "登录凭证已在其他设备使用，请重新登录";
 
     /**
      * 请求过于繁忙
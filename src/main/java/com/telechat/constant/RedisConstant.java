@@ -6,7 +6,20 @@
 package com.telechat.constant;
 
 public class RedisConstant {
+    // 用户登录会话登记 (ZSET，member 为 token 的 jti，score 为 token 过期时间戳毫秒)，用于退出其他设备、冻结账号
     public static final String USER_TOKEN = "user:token:";
+    // 已吊销的 token (STRING，后接 jti，过期时间为 token 的剩余有效期)
+    public static final String TOKEN_REVOKED = "token:revoked:jti:";
+    // 已吊销 token 的索引 (ZSET，member 为 jti，score 为 token 过期时间戳毫秒)，各节点据此重建本地布隆过滤器
+    public static final String TOKEN_REVOKED_INDEX = "token:revoked:index";
+    // token 吊销广播频道 (消息体为 jti)
+    public static final String TOKEN_REVOKED_CHANNEL = "token:revoked:channel";
+    // 刷新令牌 (STRING，后接刷新令牌的 SHA-256，值为 userId，过期时间为刷新令牌的剩余有效期)
+    public static final String TOKEN_REFRESH = "token:refresh:";
+    // 已轮换的刷新令牌 (STRING，后接 SHA-256，值为 userId)，再次出现说明令牌被盗用
+    public static final String TOKEN_REFRESH_USED = "token:refresh:used:";
+    // 用户的刷新令牌 (ZSET，member 为刷新令牌的 SHA-256，score 为过期时间戳毫秒)，用于修改密码时全部作废
+    public static final String USER_REFRESH_TOKEN = "user:refreshToken:";
 
     // 空信息，防止缓存穿透
     public static final Long EMPTY_DATA = 5L;
@@ -14,20 +27,70 @@ public class RedisConstant {
     // 锁
     public static final String LOCK_CONTACT_APPLY = "lock:contactApply:";
     public static final Long LOCK_CONTACT_APPLY_DURATION = 5L;
+    // 缓存回源互斥锁 (后接缓存 key)
+    public static final String LOCK_CACHE_LOAD = "lock:cacheLoad:";
+    // @FrequencyLock 限流 (滑动窗口为 ZSET，令牌桶为 HASH)，后接注解解析出的 Key
+    public static final String RATE_LIMIT = "rate:limit:";
 
     // 用户信息缓存
     public static final String USER_INFO = "user:info:";
     public static final Long USER_INFO_DURATION = 30L; //30min
+    // 用户信息本地缓存失效广播频道 (消息体为 userId)
+    public static final String USER_INFO_INVALIDATE_CHANNEL = "cache:invalidate:user:info";
 
-    // 用户联系人信息缓存
-    public static final String USER_CONTACTS_INFO = "user:contacts:";
-    public static final Long USER_CONTACTS_INFO_DURATION = 30L; //30min
+    // 用户联系人信息缓存 (HASH，field 为 contactId；旧版本的 String 结构 user:contacts:{userId} 自然过期)
+    public static final String USER_CONTACTS_INFO = "user:contacts:v2:";
+    public static final Long USER_CONTACTS_INFO_DURATION = 30L; //30min (软过期)
+    // 联系人排序 (ZSET，member 与 score 都是 contactId，即添加顺序)，用于分页
+    public static final String USER_CONTACTS_ORDER = "user:contacts:order:";
+    // 联系人缓存新鲜度标记，过期后读到的是旧数据，先返回再后台刷新
+    public static final String USER_CONTACTS_INFO_FRESH = "user:contacts:fresh:";
 
-    // 用户联系人申请信息缓存
-    public static final String USER_CONTACTS_APPLY = "user:contactApplies:";
-    public static final Long USER_CONTACT_APPLIES_DURATION = 60L;
+    // 用户未处理的联系人申请缓存 (HASH，field 为 applyId，value 为 ContactApplyCache；v2 以区分旧的整体 JSON 结构)
+    public static final String USER_CONTACTS_APPLY = "user:contactApplies:v2:";
+    public static final Long USER_CONTACT_APPLIES_DURATION = 60L; // 软过期
+    // 联系人申请排序 (ZSET，member 为 applyId，score 为申请时间戳毫秒)，用于分页
+    public static final String USER_CONTACTS_APPLY_ORDER = "user:contactApplies:order:";
+    // 未读联系人申请计数 (STRING)，未命中时按数据库重建
+    public static final String USER_CONTACT_APPLY_UNREAD = "user:contactApplies:unread:";
+    public static final Long USER_CONTACT_APPLY_UNREAD_DURATION = 1440L; //1天
+    // 联系人申请缓存新鲜度标记
+    public static final String USER_CONTACTS_APPLY_FRESH = "user:contactApplies:fresh:";
 
-    // 用户会话信息缓存
+    // 软过期缓存在软过期之后额外保留的时间 (硬过期 = 软过期 + 该值)，期间返回旧数据并后台刷新
+    public static final Long STALE_GRACE_DURATION = 30L;
+
+    // 用户会话列表 (ZSET，member 为 conversationId，score 为最后一条消息时间戳毫秒)
     public static final String USER_CONVERSATION = "user:conversation:";
     public static final Long USER_CONVERSATION_DURATION = 30L;
+
+    // 会话基本信息缓存
+    public static final String CONVERSATION_INFO = "conversation:info:";
+    public static final Long CONVERSATION_INFO_DURATION = 30L;
+
+    // 会话成员缓存 (HASH，field 为 userId，只包含未退出的成员)
+    public static final String CONVERSATION_MEMBERS = "conversation:members:";
+    public static final Long CONVERSATION_MEMBERS_DURATION = 30L;
+
+    // 会话最近消息缓存 (LIST，最新的在表头) 及其版本号 (每次有新消息落库时自增，防止回源时写入旧数据)
+    public static final String CONVERSATION_RECENT_MESSAGES = "conversation:recent:";
+    public static final String CONVERSATION_RECENT_VERSION = "conversation:recent:ver:";
+    public static final Long CONVERSATION_RECENT_MESSAGES_DURATION = 60L;
+    // 会话最后一条消息 (会话列表摘要，随最近消息缓存一起写入，过期时间相同)
+    public static final String CONVERSATION_LAST_MESSAGE = "conversation:last:";
+
+    // 用户未读计数 (HASH，field 为 conversationId)
+    public static final String USER_UNREAD = "user:unread:";
+    public static final Long USER_UNREAD_DURATION = 10080L; //7天
+    // 未读计数最近一次与数据库校准的标记，过期后下次读取时重新校准
+    public static final String USER_UNREAD_CHECKED = "user:unread:checked:";
+    public static final Long USER_UNREAD_CHECKED_DURATION = 10L;
+
+    // WebSocket 会话目录 (userId -> nodeId)
+    public static final String WS_SESSION = "ws:session:";
+    // WebSocket 节点频道 (每个节点订阅自己的频道)
+    public static final String WS_NODE_CHANNEL = "ws:node:";
+
+    // 用户离线消息收件箱 (ZSET，按成员字典序即消息ID排序)
+    public static final String USER_OFFLINE_INBOX = "user:offline:";
 }
@@ -0,0 +1,53 @@
+package com.telechat.controller.common;
+
+import com.telechat.pojo.result.Result;
+import com.telechat.pojo.vo.WsSessionStatsVO;
+import com.telechat.util.UserInfoNearCache;
+import com.telechat.websocket.TelechatWebSocketHandler;
+import com.telechat.websocket.WsDeliveryTracker;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运行监控 (只对 telechat.security.admin-user-ids 中的管理员开放，见 SecurityConfig)
+ */
+@RestController
+@RequestMapping("/monitor")
+@Tag(name = "运行监控接口")
+public class MonitorController {
+
+    @Autowired
+    private WsDeliveryTracker wsDeliveryTracker;
+
+    @Autowired
+    private TelechatWebSocketHandler webSocketHandler;
+
+    @Autowired
+    private UserInfoNearCache userInfoNearCache;
+
+    @Operation(summary = "WebSocket 消息投递统计")
+    @GetMapping("/ws/delivery")
+    public Result<Map<String, Long>> wsDelivery() {
+        return Result.success(wsDeliveryTracker.stats());
+    }
+
+    @Operation(summary = "WebSocket 连接发送队列统计 (按队列深度降序)")
+    @GetMapping("/ws/sessions")
+    public Result<List<WsSessionStatsVO>> wsSessions(@RequestParam(defaultValue = "50") int limit) {
+        return Result.success(webSocketHandler.outboundStats(limit));
+    }
+
+    @Operation(summary = "用户信息缓存命中统计 (本地 / Redis)")
+    @GetMapping("/cache/user-info")
+    public Result<Map<String, Object>> userInfoCache() {
+        return Result.success(userInfoNearCache.stats());
+    }
+}
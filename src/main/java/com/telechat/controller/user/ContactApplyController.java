@@ -7,6 +7,7 @@ package com.telechat.controller.user;
 
 import com.telechat.pojo.dto.contact.AddContactApplyDTO;
 import com.telechat.pojo.dto.contact.ContactApplyHandleDTO;
+import com.telechat.pojo.result.CursorResult;
 import com.telechat.pojo.result.Result;
 import com.telechat.pojo.vo.ContactApplyVO;
 import com.telechat.service.ContactApplyService;
@@ -17,7 +18,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/contactApply")
@@ -49,14 +49,16 @@ public class ContactApplyController {
         }
     }
 
-    @Operation(summary = "获取联系人申请列表【未处理】")
+    @Operation(summary = "获取联系人申请列表【未处理】(游标分页，before/beforeId 为上一页返回的 nextCursor/nextCursorId)")
     @GetMapping("/apply/list")
-    public Result<List<ContactApplyVO>> applyList() {
+    public Result<CursorResult<ContactApplyVO>> applyList(@RequestParam(required = false) Long before,
+                                                          @RequestParam(required = false) Long beforeId,
+                                                          @RequestParam(required = false) Integer limit) {
         //  获取用户id
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         log.info("获取联系人申请列表: {}", userId);
         // 获取联系人申请列表
-        List<ContactApplyVO> applyList = contactApplyService.applyList(userId);
+        CursorResult<ContactApplyVO> applyList = contactApplyService.applyList(userId, before, beforeId, limit);
         return Result.success(applyList);
     }
 
@@ -79,7 +81,7 @@ public class ContactApplyController {
     }
 
     @GetMapping("/unread-count")
-    @Operation(summary = "获取未读好友申请数量")
+    @Operation(summary = "获取未读好友申请数量 (上线或重连时查询一次，之后以 WebSocket COUNTER 推送的增量为准)")
     public Result<Long> getUnreadCount() {
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         return Result.success(contactApplyService.getUnreadCount(userId));
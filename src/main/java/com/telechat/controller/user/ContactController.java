@@ -6,8 +6,8 @@
 package com.telechat.controller.user;
 
 import com.telechat.pojo.dto.contact.UpdateContactDTO;
+import com.telechat.pojo.result.PageResult;
 import com.telechat.pojo.result.Result;
-import com.telechat.pojo.vo.ContactVO;
 import com.telechat.service.ContactService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,7 +16,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/contact")
@@ -27,14 +26,15 @@ public class ContactController {
     @Autowired
     private ContactService contactService;
 
-    @Operation(summary = "联系人列表")
+    @Operation(summary = "联系人列表 (游标分页，cursor 为上一页最后一个联系人的 id)")
     @GetMapping("/list")
-    public Result<List<ContactVO>> list() {
+    public Result<PageResult> list(@RequestParam(required = false) Long cursor,
+                                   @RequestParam(required = false) Integer size) {
         // 获取用户id
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        log.info("获取联系人列表: {}", userId);
-        List<ContactVO> contactList = contactService.list(userId);
-        return Result.success(contactList);
+        log.info("获取联系人列表: {}, cursor: {}", userId, cursor);
+        PageResult contactPage = contactService.list(userId, cursor, size);
+        return Result.success(contactPage);
     }
 
     @Operation(summary = "删除联系人")
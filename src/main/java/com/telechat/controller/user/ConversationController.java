@@ -0,0 +1,97 @@
+package com.telechat.controller.user;
+
+import com.telechat.pojo.dto.conversation.CreateGroupDTO;
+import com.telechat.pojo.dto.conversation.ReadConversationDTO;
+import com.telechat.pojo.dto.conversation.SendMessageDTO;
+import com.telechat.pojo.dto.ws.ChatMessageNotification;
+import com.telechat.pojo.result.CursorResult;
+import com.telechat.pojo.result.Result;
+import com.telechat.pojo.vo.ConversationVO;
+import com.telechat.pojo.vo.MessageVO;
+import com.telechat.service.ChatMessageService;
+import com.telechat.service.ConversationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/conversation")
+@Tag(name = "会话接口")
+@Slf4j
+public class ConversationController {
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private ChatMessageService chatMessageService;
+
+    @Operation(summary = "创建群聊")
+    @PostMapping("/group")
+    public Result<Long> createGroup(@RequestBody CreateGroupDTO createGroupDTO) {
+        // 获取用户id
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        log.info("创建群聊: {}, {}", userId, createGroupDTO.getTitle());
+        Long conversationId = conversationService.createGroup(userId, createGroupDTO);
+        return Result.success(conversationId);
+    }
+
+    @Operation(summary = "发送消息")
+    @PostMapping("/{id}/message")
+    public Result<ChatMessageNotification> send(@PathVariable Long id, @RequestBody SendMessageDTO sendMessageDTO) {
+        // 获取用户id
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        ChatMessageNotification notification = chatMessageService.send(
+                userId,
+                id,
+                sendMessageDTO.getContent(),
+                sendMessageDTO.getMessageType(),
+                sendMessageDTO.getClientMsgId()
+        );
+        return Result.success(notification);
+    }
+
+    @Operation(summary = "历史消息 (游标分页)")
+    @GetMapping("/{id}/messages")
+    public Result<CursorResult<MessageVO>> history(@PathVariable Long id,
+                                                   @RequestParam(required = false) Long before,
+                                                   @RequestParam(required = false) Integer limit) {
+        // 获取用户id
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        CursorResult<MessageVO> result = chatMessageService.history(userId, id, before, limit);
+        return Result.success(result);
+    }
+
+    @Operation(summary = "会话列表 (按最后一条消息时间倒序，游标分页)")
+    @GetMapping("/list")
+    public Result<CursorResult<ConversationVO>> list(@RequestParam(required = false) Long before,
+                                                     @RequestParam(required = false) Long beforeId,
+                                                     @RequestParam(required = false) Integer limit) {
+        // 获取用户id
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return Result.success(conversationService.list(userId, before, beforeId, limit));
+    }
+
+    @Operation(summary = "各会话未读数")
+    @GetMapping("/unread")
+    public Result<Map<Long, Long>> unread() {
+        // 获取用户id
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return Result.success(conversationService.unreadCounts(userId));
+    }
+
+    @Operation(summary = "标记会话已读")
+    @PutMapping("/{id}/read")
+    public Result<String> read(@PathVariable Long id, @RequestBody(required = false) ReadConversationDTO readConversationDTO) {
+        // 获取用户id
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Long lastReadMessageId = readConversationDTO == null ? null : readConversationDTO.getLastReadMessageId();
+        conversationService.markRead(userId, id, lastReadMessageId);
+        return Result.success("已读");
+    }
+}
@@ -7,11 +7,13 @@ package com.telechat.controller.user;
 
 import com.telechat.constant.ExceptionConstant;
 import com.telechat.pojo.dto.LoginDTO;
+import com.telechat.pojo.dto.RefreshTokenDTO;
 import com.telechat.pojo.dto.RegisterDTO;
 import com.telechat.pojo.dto.ResetPasswordDTO;
 import com.telechat.pojo.dto.VerifyCodeDTO;
 import com.telechat.pojo.entity.User;
 import com.telechat.pojo.result.Result;
+import com.telechat.pojo.vo.TokenVO;
 import com.telechat.pojo.vo.UserInfoVO;
 import com.telechat.pojo.vo.UserLoginVO;
 import com.telechat.security.JwtTokenProvider;
@@ -125,16 +127,16 @@ public class UserController {
      * 验证码登录
      *
      * @param loginDTO 登录信息
-     * @return JWT Token
+     * @return 访问令牌、刷新令牌与用户信息
      */
     @PostMapping("/login")
     public Result<UserLoginVO> login(@RequestBody LoginDTO loginDTO) {
         log.info("登录参数：{}", loginDTO);
         try {
             User user;
-            // 登录并获取JWT Token
-            String token = userAuthsService.login(loginDTO);
-            user = userService.getUserById(jwtTokenProvider.getUserIdFromToken(token));
+            // 登录并获取访问令牌与刷新令牌
+            TokenVO tokenVO = userAuthsService.login(loginDTO);
+            user = userService.getUserById(jwtTokenProvider.getUserIdFromToken(tokenVO.getToken()));
             UserInfoVO userInfoVO = UserInfoVO.builder()
                     .username(user.getUsername())
                     .nickname(user.getNickname())
@@ -142,13 +144,40 @@ public class UserController {
                     .gender(user.getGender())
                     .bio(user.getBio())
                     .build();
-            UserLoginVO userLoginVO = new UserLoginVO(token, "Bearer", jwtTokenProvider.getJwtExpiration(), userInfoVO);
+            UserLoginVO userLoginVO = new UserLoginVO(tokenVO.getToken(), tokenVO.getTokenType(), tokenVO.getExpiresIn(),
+                    tokenVO.getRefreshToken(), tokenVO.getRefreshExpiresIn(), userInfoVO);
             return Result.success(userLoginVO);
         } catch (Exception e) {
             return Result.error(ExceptionConstant.LOGIN_ERROR_CODE, e.getMessage());
         }
     }
 
+    /**
+     * 刷新令牌：访问令牌过期后换取新的访问令牌与刷新令牌 (旧刷新令牌作废，不能重复使用)
+     *
+     * @param refreshTokenDTO 刷新令牌
+     * @return Result<TokenVO>
+     */
+    @PostMapping("/refresh")
+    public Result<TokenVO> refresh(@RequestBody RefreshTokenDTO refreshTokenDTO) {
+        return Result.success(userAuthsService.refresh(refreshTokenDTO.getRefreshToken()));
+    }
+
+    /**
+     * 退出登录：吊销当前访问令牌 (所有节点数秒内生效) 并作废刷新令牌
+     *
+     * @param authorization   请求头 Authorization (Bearer token)
+     * @param refreshTokenDTO 刷新令牌，可不传
+     * @return Result<String>
+     */
+    @PostMapping("/logout")
+    public Result<String> logout(@RequestHeader("Authorization") String authorization,
+                                 @RequestBody(required = false) RefreshTokenDTO refreshTokenDTO) {
+        String token = authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization;
+        userAuthsService.logout(token, refreshTokenDTO == null ? null : refreshTokenDTO.getRefreshToken());
+        return Result.success("退出登录成功");
+    }
+
     /**
      * 重新设置密码
      *
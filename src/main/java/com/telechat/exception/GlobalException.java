@@ -73,6 +73,18 @@ public class GlobalException {
         return Result.error(e.getCode(), e.getMessage());
     }
 
+    @ExceptionHandler(value = {MessageException.class})
+    public Result<String> messageExceptionHandler(HttpServletRequest request, MessageException e) {
+        log.info("消息异常,请求地址:{},错误信息:{}", request.getRequestURI(), e.getMessage());
+        return Result.error(e.getCode(), e.getMessage());
+    }
+
+    @ExceptionHandler(value = {ConversationException.class})
+    public Result<String> conversationExceptionHandler(HttpServletRequest request, ConversationException e) {
+        log.info("会话异常,请求地址:{},错误信息:{}", request.getRequestURI(), e.getMessage());
+        return Result.error(e.getCode(), e.getMessage());
+    }
+
     @ExceptionHandler(value = {FrequencyException.class})
     public Result<String> frequencyExceptionHandler(HttpServletRequest request, FrequencyException e) {
         log.info("请求过于频繁,请求地址:{},错误信息:{}", request.getRequestURI(), e.getMessage());
@@ -0,0 +1,18 @@
+package com.telechat.exception.exceptions;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+public class MessageException extends RuntimeException{
+
+    private int code;
+    private String message;
+
+    public MessageException(int code, String message) {
+        super(message);
+        this.code = code;
+        this.message = message;
+    }
+}
@@ -0,0 +1,39 @@
+package com.telechat.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.telechat.pojo.dto.UnreadCountDTO;
+import com.telechat.pojo.entity.ChatMessage;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface ChatMessageMapper extends BaseMapper<ChatMessage> {
+
+    /**
+     * 多行批量插入 (INSERT ... VALUES (...), (...), ...)
+     * 一次 JDBC 往返写入整批消息
+     */
+    @Insert("<script>" +
+            "INSERT INTO chat_message (id, conversation_id, sender_id, content, message_type, create_time) VALUES " +
+            "<foreach collection='list' item='m' separator=','>" +
+            "(#{m.id}, #{m.conversationId}, #{m.senderId}, #{m.content}, #{m.messageType}, #{m.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<ChatMessage> messages);
+
+    /**
+     * 统计用户在各会话中的未读消息数 (lastReadMessageId 之后、别人发的消息)
+     * 每个会话走一次 chat_message(conversation_id, id) 索引范围扫描，只用于未读计数校准
+     */
+    @Select("SELECT m.conversation_id AS conversationId, COUNT(c.id) AS unread " +
+            "FROM conversation_member m " +
+            "JOIN chat_message c ON c.conversation_id = m.conversation_id " +
+            "AND c.id > IFNULL(m.last_read_message_id, 0) AND c.sender_id <> m.user_id " +
+            "WHERE m.user_id = #{userId} AND m.is_deleted = 0 " +
+            "GROUP BY m.conversation_id")
+    List<UnreadCountDTO> countUnread(@Param("userId") Long userId);
+}
@@ -3,7 +3,39 @@ package com.telechat.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.telechat.pojo.entity.Conversation;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 @Mapper
 public interface ConversationMapper extends BaseMapper<Conversation> {
+
+    /**
+     * 批量更新会话的最后一条消息 (一条 UPDATE ... CASE 语句)
+     * <p>只有消息 ID 更大时才覆盖，防止多节点乱序落库导致回退。
+     * 注意 MySQL 按从左到右的顺序执行赋值，last_message_id 必须放在最后。</p>
+     */
+    @Update("<script>" +
+            "UPDATE conversation SET " +
+            "last_message_content = CASE id " +
+            "<foreach collection='list' item='c'>" +
+            "WHEN #{c.id} THEN IF(IFNULL(last_message_id, 0) &lt; #{c.lastMessageId}, #{c.lastMessageContent}, last_message_content) " +
+            "</foreach>END, " +
+            "last_message_time = CASE id " +
+            "<foreach collection='list' item='c'>" +
+            "WHEN #{c.id} THEN IF(IFNULL(last_message_id, 0) &lt; #{c.lastMessageId}, #{c.lastMessageTime}, last_message_time) " +
+            "</foreach>END, " +
+            "updated_time = CASE id " +
+            "<foreach collection='list' item='c'>" +
+            "WHEN #{c.id} THEN IF(IFNULL(last_message_id, 0) &lt; #{c.lastMessageId}, #{c.updatedTime}, updated_time) " +
+            "</foreach>END, " +
+            "last_message_id = CASE id " +
+            "<foreach collection='list' item='c'>" +
+            "WHEN #{c.id} THEN GREATEST(IFNULL(last_message_id, 0), #{c.lastMessageId}) " +
+            "</foreach>END " +
+            "WHERE id IN " +
+            "<foreach collection='list' item='c' open='(' separator=',' close=')'>#{c.id}</foreach>" +
+            "</script>")
+    int updateLastMessageBatch(@Param("list") List<Conversation> conversations);
 }
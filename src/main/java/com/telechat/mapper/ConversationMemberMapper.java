@@ -2,8 +2,23 @@ package com.telechat.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.telechat.pojo.entity.ConversationMember;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface ConversationMemberMapper extends BaseMapper<ConversationMember> {
+
+    /**
+     * 多行批量插入会话成员 (建群时一次写入全部成员)
+     */
+    @Insert("<script>" +
+            "INSERT INTO conversation_member (conversation_id, user_id, role, is_muted, is_deleted, joined_time) VALUES " +
+            "<foreach collection='list' item='m' separator=','>" +
+            "(#{m.conversationId}, #{m.userId}, #{m.role}, #{m.muted}, #{m.deleted}, #{m.joinedTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<ConversationMember> members);
 }
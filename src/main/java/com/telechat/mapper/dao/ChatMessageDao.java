@@ -0,0 +1,73 @@
+package com.telechat.mapper.dao;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.telechat.mapper.ChatMessageMapper;
+import com.telechat.pojo.dto.UnreadCountDTO;
+import com.telechat.pojo.entity.ChatMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 聊天消息数据访问层
+ */
+@Repository
+public class ChatMessageDao {
+
+    @Autowired
+    private ChatMessageMapper chatMessageMapper;
+
+    /**
+     * 批量插入聊天消息 (多行 INSERT)
+     *
+     * @param messages 消息列表 (ID 已由雪花算法分配)
+     */
+    public void insertBatch(List<ChatMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        chatMessageMapper.insertBatch(messages);
+    }
+
+    /**
+     * 消息是否已落库
+     *
+     * @param id 消息ID
+     * @return boolean
+     */
+    public boolean existsById(Long id) {
+        LambdaQueryWrapper<ChatMessage> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ChatMessage::getId, id);
+        return chatMessageMapper.selectCount(queryWrapper) > 0;
+    }
+
+    /**
+     * 按游标倒序查询会话历史消息 (keyset 分页，不使用 OFFSET)
+     * <p>依赖索引 chat_message(conversation_id, id)：WHERE conversation_id = ? AND id < ? ORDER BY id DESC LIMIT ?
+     * 是一次索引范围扫描，无 filesort，翻到多深都只扫描 limit 行。</p>
+     *
+     * @param conversationId 会话ID
+     * @param before         游标 (不含)，为 null 时从最新一条开始
+     * @param limit          条数
+     * @return List<ChatMessage> ID 降序
+     */
+    public List<ChatMessage> selectHistory(Long conversationId, Long before, int limit) {
+        LambdaQueryWrapper<ChatMessage> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ChatMessage::getConversationId, conversationId)
+                .lt(before != null, ChatMessage::getId, before)
+                .orderByDesc(ChatMessage::getId)
+                .last("LIMIT " + limit);
+        return chatMessageMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 统计用户在各会话中的未读消息数 (只返回有未读的会话)
+     *
+     * @param userId 用户ID
+     * @return List<UnreadCountDTO>
+     */
+    public List<UnreadCountDTO> countUnread(Long userId) {
+        return chatMessageMapper.countUnread(userId);
+    }
+}
@@ -11,6 +11,10 @@ import org.apache.ibatis.annotations.Mapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 @Component
 public class ConversationDao {
     @Autowired
@@ -34,4 +38,29 @@ public class ConversationDao {
         return conversationMapper.selectById(conversationId);
     }
 
+    /**
+     * 根据ID集合批量查询会话
+     *
+     * @param conversationIds 会话ID集合
+     * @return 会话列表
+     */
+    public List<Conversation> selectBatchIds(Collection<Long> conversationIds) {
+        if (conversationIds == null || conversationIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return conversationMapper.selectBatchIds(conversationIds);
+    }
+
+    /**
+     * 批量更新会话的最后一条消息 (消息落库时顺带更新)
+     *
+     * @param conversations 会话列表 (仅需 id 与 LastMessage* 字段)
+     */
+    public void updateLastMessageBatch(List<Conversation> conversations) {
+        if (conversations == null || conversations.isEmpty()) {
+            return;
+        }
+        conversationMapper.updateLastMessageBatch(conversations);
+    }
+
 }
@@ -12,6 +12,8 @@ import com.telechat.pojo.entity.ConversationMember;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class ConversationMemberDao {
     @Autowired
@@ -26,6 +28,17 @@ public class ConversationMemberDao {
         conversationMemberMapper.insert(conversationMember);
     }
 
+    /**
+     * 批量插入会话成员 (按 1000 条分批，避免单条 SQL 过大)
+     *
+     * @param members 会话成员
+     */
+    public void insertBatch(List<ConversationMember> members) {
+        for (int from = 0; from < members.size(); from += 1000) {
+            conversationMemberMapper.insertBatch(members.subList(from, Math.min(from + 1000, members.size())));
+        }
+    }
+
     /**
      * 根据会话ID和用户ID查询会话成员
      *
@@ -40,6 +53,33 @@ public class ConversationMemberDao {
         return conversationMemberMapper.selectOne(queryWrapper);
     }
 
+    /**
+     * 根据会话ID查询全部会话成员
+     *
+     * @param conversationId 会话ID
+     * @return List<ConversationMember>
+     */
+    public List<ConversationMember> selectByConversationId(Long conversationId) {
+        LambdaQueryWrapper<ConversationMember> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ConversationMember::getConversationId, conversationId);
+        return conversationMemberMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 查询用户加入的全部会话 (不含已退出的)
+     *
+     * @param userId 用户ID
+     * @return List<ConversationMember>
+     */
+    public List<ConversationMember> selectByUserId(Long userId) {
+        LambdaQueryWrapper<ConversationMember> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ConversationMember::getUserId, userId);
+        // isDeleted 是 boolean 的 isXxx 字段，Lambda 解析不到列名，这里在内存中过滤
+        return conversationMemberMapper.selectList(queryWrapper).stream()
+                .filter(m -> !m.isDeleted())
+                .toList();
+    }
+
     /**
      * 根据会话ID更新会话成员
      *
@@ -66,11 +106,14 @@ public class ConversationMemberDao {
 
     /**
      * 更新用户在某个会话中的最后阅读消息ID (高频操作)
+     * 只前进不后退，多端乱序上报时不会把已读位置改小
      */
     public int updateLastReadMessageId(Long conversationId, Long userId, Long lastReadMessageId) {
         LambdaUpdateWrapper<ConversationMember> updateWrapper = new LambdaUpdateWrapper<>();
         updateWrapper.eq(ConversationMember::getConversationId, conversationId)
                 .eq(ConversationMember::getUserId, userId)
+                .and(w -> w.isNull(ConversationMember::getLastReadMessageId)
+                        .or().lt(ConversationMember::getLastReadMessageId, lastReadMessageId))
                 // 直接 set 目标字段
                 .set(ConversationMember::getLastReadMessageId, lastReadMessageId);
 
@@ -0,0 +1,27 @@
+package com.telechat.pojo.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ChatMessageCache {
+    private Long messageId;
+    private Long senderId;
+    private String content;
+    private String messageType;
+    private LocalDateTime createTime;
+
+    // 辅助方法：判断是否为空对象标记 (会话还没有消息)
+    @JsonIgnore
+    public boolean isNullPlaceholder() {
+        return this.messageId != null && this.messageId == -1L;
+    }
+}
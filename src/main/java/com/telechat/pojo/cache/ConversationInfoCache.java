@@ -1,5 +1,8 @@
 package com.telechat.pojo.cache;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.telechat.pojo.enums.ConversationStatus;
+import com.telechat.pojo.enums.ConversationType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,4 +13,16 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 public class ConversationInfoCache {
+    private Long conversationId;
+    private ConversationType type;
+    private String title;
+    private String avatar;
+    private Long ownerId;
+    private ConversationStatus status;
+
+    // 辅助方法：判断是否为空对象标记
+    @JsonIgnore
+    public boolean isNullPlaceholder() {
+        return this.conversationId != null && this.conversationId == -1L;
+    }
 }
@@ -10,4 +10,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 public class ConversationUserCache {
+    private Long userId;
+    private String role;
+    // 免打扰
+    private boolean muted;
 }
@@ -0,0 +1,15 @@
+package com.telechat.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 刷新令牌
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenDTO {
+    private String refreshToken;
+}
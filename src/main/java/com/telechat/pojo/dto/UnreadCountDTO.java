@@ -0,0 +1,13 @@
+package com.telechat.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UnreadCountDTO {
+    private Long conversationId;
+    private Long unread;
+}
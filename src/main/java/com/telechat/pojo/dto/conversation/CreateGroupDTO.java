@@ -0,0 +1,15 @@
+package com.telechat.pojo.dto.conversation;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CreateGroupDTO {
+    // 群聊名称
+    private String title;
+    // 群头像
+    private String avatar;
+    // 邀请的成员 (不需要包含自己)
+    private List<Long> memberIds;
+}
@@ -0,0 +1,9 @@
+package com.telechat.pojo.dto.conversation;
+
+import lombok.Data;
+
+@Data
+public class ReadConversationDTO {
+    // 已读到的消息ID，为空时视为已读到会话的最后一条消息
+    private Long lastReadMessageId;
+}
@@ -0,0 +1,13 @@
+package com.telechat.pojo.dto.conversation;
+
+import lombok.Data;
+
+@Data
+public class SendMessageDTO {
+    // 消息内容
+    private String content;
+    // 消息类型 (为空时默认为 text)
+    private String messageType;
+    // 客户端本地消息ID，用于客户端去重/回执匹配
+    private String clientMsgId;
+}
@@ -0,0 +1,28 @@
+package com.telechat.pojo.dto.ws;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 聊天消息推送体
+ */
+@Data
+@Builder
+public class ChatMessageNotification {
+    // 消息ID (雪花算法)
+    private Long messageId;
+    // 会话ID
+    private Long conversationId;
+    // 发送者ID
+    private Long senderId;
+    // 消息内容
+    private String content;
+    // 消息类型 (text / image ...)
+    private String messageType;
+    // 客户端本地消息ID (发送方用于回填状态，其他人忽略)
+    private String clientMsgId;
+    // 时间
+    private LocalDateTime createTime;
+}
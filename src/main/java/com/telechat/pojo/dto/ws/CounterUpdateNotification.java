@@ -0,0 +1,42 @@
+package com.telechat.pojo.dto.ws;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 未读计数增量消息体
+ * <p>客户端先按 reset/cleared 归零，再叠加增量</p>
+ */
+@Data
+public class CounterUpdateNotification {
+    // 未读好友申请数是否先归零 (全部标记已读)
+    private boolean contactApplyReset;
+    // 未读好友申请数增量
+    private long contactApplyDelta;
+    // 先归零的会话 (已读)
+    private Set<Long> conversationCleared = new HashSet<>();
+    // 会话未读数增量 (conversationId -> 增量)
+    private Map<Long, Long> conversationDeltas = new HashMap<>();
+
+    public void addContactApply(long delta) {
+        contactApplyDelta += delta;
+    }
+
+    public void resetContactApply() {
+        contactApplyReset = true;
+        contactApplyDelta = 0;
+    }
+
+    public void addConversation(Long conversationId, long delta) {
+        conversationDeltas.merge(conversationId, delta, Long::sum);
+    }
+
+    public void clearConversation(Long conversationId) {
+        conversationCleared.add(conversationId);
+        conversationDeltas.remove(conversationId);
+    }
+}
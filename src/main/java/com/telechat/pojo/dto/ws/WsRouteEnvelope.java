@@ -0,0 +1,26 @@
+package com.telechat.pojo.dto.ws;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 跨节点转发的消息信封
+ * payload 为已经序列化好的 WsMessage JSON，目标节点原样写给本地会话
+ * 群发时同一节点上的多个接收者共用一个信封，payload 只传一份
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WsRouteEnvelope {
+    // 接收者ID (均在目标节点上)
+    private List<Long> userIds;
+    // 消息ID (离线存储时用作排序键)
+    private Long messageId;
+    // 目标节点发现用户已下线时，是否写入离线收件箱
+    private boolean offline;
+    // WsMessage JSON
+    private String payload;
+}
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @Builder
 @TableName("chat_message")
 public class ChatMessage {
-    @TableId(value = "id", type = IdType.AUTO)
+    // 主键由雪花算法生成 (发送时即分配，便于推送与落库使用同一个 ID)
+    @TableId(value = "id", type = IdType.INPUT)
     private Long id;
     private Long conversationId;
     private Long senderId;
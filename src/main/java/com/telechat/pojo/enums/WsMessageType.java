@@ -9,19 +9,40 @@ import lombok.Getter;
 @Getter
 public enum WsMessageType {
     // 基础类型
-    SYSTEM("system"),           // 系统通知
-    ERROR("error"),             // 错误提示
-    HEARTBEAT("heartbeat"),     // 心跳包
-    
+    SYSTEM("system", false),           // 系统通知
+    ERROR("error", false),             // 错误提示
+    HEARTBEAT("heartbeat", false),     // 心跳包
+    SYNC("sync", false),               // 客户端请求补发离线消息
+    ACK("ack", false),                 // 客户端确认收到消息
+
     // 业务类型
-    CHAT("chat"),               // 聊天消息
-    TYPING("typing"),           // 正在输入...
-    CONTACT_APPLY("contact_apply"), // 好友申请
-    CONTACT_REPLY("contact_reply"); // 好友申请处理结果
+    CHAT("chat", true),               // 聊天消息
+    TYPING("typing", false),           // 正在输入...
+    CONTACT_APPLY("contact_apply", true), // 好友申请
+    CONTACT_REPLY("contact_reply", true), // 好友申请处理结果
+    COUNTER("counter", false);         // 未读计数增量 (按用户短时间合并，离线时不补发，上线后以接口查询为准)
 
     private final String value;
 
-    WsMessageType(String value) {
+    /**
+     * 接收者不在线时是否写入离线收件箱 (瞬时消息如 typing 直接丢弃)
+     */
+    private final boolean offline;
+
+    WsMessageType(String value, boolean offline) {
         this.value = value;
+        this.offline = offline;
+    }
+
+    /**
+     * 判断某个类型值是否需要离线存储
+     */
+    public static boolean isOffline(String value) {
+        for (WsMessageType type : values()) {
+            if (type.value.equals(value)) {
+                return type.offline;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.telechat.pojo.enums;
+
+/**
+ * WebSocket 发送队列溢出策略
+ */
+public enum WsOverflowPolicy {
+    // 先丢弃瞬时消息 (typing 等)，仍然放不下则断开连接 (客户端重连后从离线收件箱补发)
+    DROP_TRANSIENT_THEN_CLOSE,
+    // 先丢弃瞬时消息，仍然放不下则拒收新消息 (业务消息转入离线收件箱)
+    DROP_TRANSIENT_THEN_REJECT,
+    // 队列一满直接断开连接
+    CLOSE
+}
@@ -0,0 +1,31 @@
+package com.telechat.pojo.result;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 封装游标分页查询结果
+ * 不返回总数 (需要 COUNT 全表范围)，客户端用 nextCursor 继续向前翻页
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorResult<T> implements Serializable {
+
+    private List<T> records; //当前页数据集合
+
+    private Long nextCursor; //下一页的游标 (本页最后一条记录的ID 或排序值)，没有更多数据时为 null
+
+    private Long nextCursorId; //按排序值翻页时，本页最后一条记录的ID (排序值相同的记录按它区分)，其他情况为 null
+
+    private boolean hasMore; //是否还有更多数据
+
+    public CursorResult(List<T> records, Long nextCursor, boolean hasMore) {
+        this(records, nextCursor, null, hasMore);
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.telechat.pojo.vo;
+
+import com.telechat.pojo.enums.ConversationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+@Builder
+public class ConversationVO {
+    private Long conversationId;
+    private ConversationType type;
+    private String title;
+    private String avatar;
+    private Long lastMessageId;
+    private String lastMessageContent;
+    private LocalDateTime lastMessageTime;
+    // 会话列表排序用的 score (最后一条消息时间戳毫秒)，翻页时作为游标传回
+    private Long sortKey;
+}
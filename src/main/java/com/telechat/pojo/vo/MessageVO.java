@@ -14,9 +14,9 @@ import java.time.LocalDateTime;
 @Builder
 public class MessageVO {
     private Long id;
+    private Long conversationId;
     private Long senderId;
-    private Long receiverId;
     private String content;
-    private LocalDateTime timestamp;
-    private String status;
-}
\ No newline at end of file
+    private String messageType;
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,25 @@
+package com.telechat.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 访问令牌与刷新令牌 (登录、刷新时返回)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TokenVO {
+    // 访问令牌 (JWT)，放在请求头 Authorization 与 WebSocket 握手参数中
+    private String token;
+    private String tokenType;
+    // 访问令牌有效期 (毫秒)
+    private Long expiresIn;
+    // 刷新令牌 (一次性，使用后换发新的)
+    private String refreshToken;
+    // 刷新令牌有效期 (毫秒)
+    private Long refreshExpiresIn;
+}
@@ -18,8 +18,12 @@ import lombok.NoArgsConstructor;
 
 @Builder
 public class UserLoginVO {
+    // 访问令牌 (短期有效)
     private String token;
     private String tokenType;
     private Long expiresIn;
+    // 刷新令牌 (访问令牌过期后调用 /user/refresh 换取新的一对令牌)
+    private String refreshToken;
+    private Long refreshExpiresIn;
     private UserInfoVO profile;
 }
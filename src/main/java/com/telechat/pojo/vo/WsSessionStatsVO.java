@@ -0,0 +1,31 @@
+package com.telechat.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * WebSocket 连接发送队列统计
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WsSessionStatsVO {
+    private Long userId;
+    private String sessionId;
+    // 当前队列深度
+    private int depth;
+    // 历史最大队列深度
+    private int maxDepth;
+    // 累计入队 / 已写出 / 丢弃的帧数
+    private long enqueued;
+    private long sent;
+    private long dropped;
+    // 已写出帧的平均 / 最大排队时间 (毫秒)
+    private double avgQueueMs;
+    private double maxQueueMs;
+    // 队首帧已排队的时间 (毫秒)，持续增长说明客户端读得太慢
+    private double headAgeMs;
+}
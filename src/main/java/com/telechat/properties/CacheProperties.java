@@ -0,0 +1,26 @@
+package com.telechat.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缓存配置
+ */
+@Component
+@ConfigurationProperties(prefix = "telechat.cache")
+@Data
+public class CacheProperties {
+    // 用户信息本地缓存最大条数
+    private long userInfoLocalMaxSize = 10000;
+    // 用户信息本地缓存过期时间 (秒)，也是失效广播丢失时本地脏数据的最长存活时间
+    private long userInfoLocalTtlSeconds = 60;
+    // RedisTemplate 值序列化方式：compact (缓存对象用二进制，其余 JSON) / json (全部写 JSON，已有的二进制记录仍可读取，用于回滚)
+    private String valueSerializer = "compact";
+    // 缓存回源时是否使用 Redis 互斥锁 (多节点之间只有一个节点查库)
+    private boolean loadMutexEnabled = true;
+    // 回源互斥锁的有效期 (毫秒)，也是其他节点等待的最长时间
+    private long loadMutexTtlMs = 3000;
+    // 等待其他节点回源时轮询缓存的间隔 (毫秒)
+    private long loadMutexPollMs = 50;
+}
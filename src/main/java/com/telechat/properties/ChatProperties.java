@@ -0,0 +1,42 @@
+package com.telechat.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 聊天消息管道配置
+ */
+@Component
+@ConfigurationProperties(prefix = "telechat.chat")
+@Data
+public class ChatProperties {
+    // 内存写队列容量 (超过后拒绝发送，避免 OOM)
+    private int queueCapacity = 65536;
+    // 单次批量落库的最大条数 (受 max_allowed_packet 约束)
+    private int batchSize = 500;
+    // 队列为空时写线程的等待时间 (毫秒)
+    private long flushIntervalMs = 10;
+    // 入队最长等待时间 (毫秒)，超时视为系统繁忙
+    private long offerTimeoutMs = 50;
+    // 批量落库失败后的首次重试间隔 (毫秒)，之后每次翻倍
+    private long writeRetryInitialBackoffMs = 50;
+    // 批量落库重试间隔上限 (毫秒)，数据库恢复前一直按该间隔重试
+    private long writeRetryMaxBackoffMs = 5000;
+    // 单条消息内容最大长度
+    private int maxContentLength = 4000;
+    // 群聊成员上限
+    private int maxGroupMembers = 5000;
+    // 推送时每批的接收者数量，超过后按批异步推送
+    private int fanoutChunkSize = 500;
+    // 异步推送的通道数 (同一会话固定走同一通道，保证同一接收者收到的顺序)
+    private int fanoutLanes = 4;
+    // 每个推送通道的任务队列容量，满了由发送线程自己推送
+    private int fanoutQueueCapacity = 1024;
+    // 每个会话在 Redis 中缓存的最近消息条数
+    private int recentCacheSize = 50;
+    // 历史消息每页最大条数
+    private int historyMaxLimit = 100;
+    // 未读计数推送的合并窗口 (毫秒)，窗口内同一用户的多次变化合并为一帧
+    private long counterPushWindowMs = 200;
+}
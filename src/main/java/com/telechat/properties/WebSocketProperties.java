@@ -0,0 +1,43 @@
+package com.telechat.properties;
+
+import com.telechat.pojo.enums.WsOverflowPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket 集群配置
+ */
+@Component
+@ConfigurationProperties(prefix = "telechat.ws")
+@Data
+public class WebSocketProperties {
+    // 当前节点ID，为空时启动时随机生成 (多实例部署时建议显式配置)
+    private String nodeId;
+    // 会话目录 (userId -> nodeId) 的过期时间 (秒)，节点宕机后由过期兜底清理
+    private long sessionTtlSeconds = 90;
+    // 跨节点消息按目标节点合并发送的间隔 (毫秒)
+    private long routeFlushIntervalMs = 5;
+    // 单次合并发送的最大消息数
+    private int routeBatchSize = 200;
+    // 每个用户离线收件箱最多保留的消息数 (超出后丢弃最旧的)
+    private int offlineInboxMaxSize = 1000;
+    // 离线收件箱过期时间 (天)
+    private long offlineInboxTtlDays = 7;
+    // 重连补发时每页的消息数
+    private int offlineReplayPageSize = 100;
+    // ACK 超时后首次重传的等待时间 (毫秒)，之后每次翻倍
+    private long ackTimeoutMs = 2000;
+    // 重传等待时间上限 (毫秒)
+    private long ackMaxBackoffMs = 30000;
+    // 最大重传次数，超过后转入离线收件箱
+    private int ackMaxRetries = 3;
+    // ACK 时间轮每格的时长 (毫秒)
+    private long ackTickMs = 100;
+    // ACK 时间轮槽位数 (向上取 2 的幂)
+    private int ackWheelSize = 512;
+    // 每个连接发送队列的最大帧数
+    private int outboundQueueCapacity = 1024;
+    // 发送队列满时的处理策略
+    private WsOverflowPolicy outboundOverflowPolicy = WsOverflowPolicy.DROP_TRANSIENT_THEN_CLOSE;
+}
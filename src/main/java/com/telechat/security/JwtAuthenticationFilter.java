@@ -1,5 +1,7 @@
 package com.telechat.security;
 
+import com.telechat.constant.MessageConstant;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,26 +9,62 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 @EqualsAndHashCode(callSuper = false)
 @Data
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    // 所有请求共用的不可变权限列表：普通用户没有权限，管理员只有 ROLE_ADMIN (用于 /monitor/** 等运维接口)
+    private static final List<GrantedAuthority> AUTHORITIES = AuthorityUtils.NO_AUTHORITIES;
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES =
+            AuthorityUtils.createAuthorityList("ROLE_" + MessageConstant.ADMIN_ROLE);
+
     private JwtTokenProvider jwtTokenProvider;
+    private TokenRevocationRegistry tokenRevocationRegistry;
     private UserDetailsService userDetailsService;
 
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider) {
+    // 管理员用户ID (来自配置，访问令牌中只有 userId，不需要查库)
+    private Set<Long> adminUserIds = Set.of();
+
+    // 不需要 JWT 验证的路径，直接跳过过滤器；为空时不跳过任何请求
+    private RequestMatcher excludeMatcher;
+
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, TokenRevocationRegistry tokenRevocationRegistry,
+                                   String... excludeUrls) {
         this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.excludeMatcher = excludeUrls.length == 0 ? null : new OrRequestMatcher(Arrays.stream(excludeUrls)
+                .map(url -> (RequestMatcher) new AntPathRequestMatcher(url))
+                .toList());
     }
 
+    /**
+     * 预检请求与公开路径不需要认证，不进入过滤器
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return HttpMethod.OPTIONS.matches(request.getMethod())
+                || (excludeMatcher != null && excludeMatcher.matches(request));
+    }
 
     /**
     * 从请求中获取JWT token
@@ -34,6 +72,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     * 从JWT token中获取用户信息
     * 设置Spring Security上下文
     * 继续过滤链
+    * <p>每个请求都会经过这里：不记录 token 原文，调试日志只在 debug 级别开启时才拼接参数</p>
     * @param request  HttpServletRequest对象
     * @param response HttpServletResponse对象
     * @param filterChain FilterChain对象
@@ -46,20 +85,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
-            log.info("jwt{}",jwt);
 
-            if (jwt != null && jwtTokenProvider.validateToken(jwt)) {
-                Long userId = jwtTokenProvider.getUserIdFromToken(jwt);
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
-                log.info("userId{}",userId);
+            // 只解析验证一次 (最近验证过的 token 直接命中本地缓存)，再查吊销列表 (通常只查本地布隆过滤器)
+            Claims claims = jwt == null ? null : jwtTokenProvider.parseClaims(jwt);
+            if (claims != null && tokenRevocationRegistry.isRevoked(claims)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("JWT 已吊销: jti={}, uri={}", claims.getId(), request.getRequestURI());
+                }
+            } else if (claims != null) {
+                Long userId = JwtTokenProvider.getUserId(claims);
+                if (log.isDebugEnabled()) {
+                    log.debug("JWT 认证通过: userId={}, uri={}", userId, request.getRequestURI());
+                }
 
                 // 这里可以加载用户详细信息（将前端的token解析并存入上下文）
                 // UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userId, null, null);
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                // 不再构建 WebAuthenticationDetails (远程地址、会话ID)，业务中没有用到
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(userId, null,
+                                adminUserIds.contains(userId) ? ADMIN_AUTHORITIES : AUTHORITIES));
+            } else if (jwt != null && log.isDebugEnabled()) {
+                log.debug("JWT 无效或已过期: uri={}", request.getRequestURI());
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -69,13 +115,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     private String getJwtFromRequest(HttpServletRequest request) {
-        String bearerToken = request.getHeader("Authorization");
-        log.info("Authorization header: {}", bearerToken); // 添加日志
-
-        if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
+        String bearerToken = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (bearerToken != null && bearerToken.startsWith(BEARER_PREFIX)) {
+            return bearerToken.substring(BEARER_PREFIX.length());
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("No valid bearer token found: uri={}", request.getRequestURI());
         }
-        log.info("No valid bearer token found"); // 添加日志
         return null;
     }
-}
\ No newline at end of file
+}
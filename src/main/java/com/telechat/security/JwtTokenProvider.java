@@ -1,16 +1,22 @@
 package com.telechat.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component //bean
 @Data
@@ -19,71 +25,118 @@ public class JwtTokenProvider {
     @Value("${telechat.jwt.secret}")
     private String jwtSecret;
 
+    // 登录会话有效期 (刷新令牌的有效期，毫秒)
     @Value("${telechat.jwt.expiration}")
     private Long jwtExpiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // 访问令牌有效期 (毫秒)，过期后用刷新令牌换取新的访问令牌
+    @Value("${telechat.jwt.access-expiration:900000}")
+    private Long accessExpiration;
+
+    // 已验证 token 的本地缓存条数上限
+    @Value("${telechat.jwt.claims-cache-size:10000}")
+    private long claimsCacheSize;
+
+    // 签名密钥与解析器都是线程安全的不可变对象，启动时构建一次
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    // token -> 验签通过的 claims，到 token 过期时间为止有效 (同一个客户端的每个请求都带同一个 token)
+    // 以 token 原文为 key：精确匹配，不会因为摘要碰撞把别人的 claims 当成自己的
+    private Cache<String, Claims> verifiedClaims;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        long remainingMs = expiration == null ? 0 : expiration.getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
-    public String generateToken(Long userId, String username, String role) {
+    /**
+     * 签发访问令牌
+     * <p>只携带 sub (userId)、jti、iat、exp：每个请求都要带上它，越短越好；昵称、角色等按需从缓存读取</p>
+     *
+     * @param userId 用户ID
+     * @return JWT
+     */
+    public String generateAccessToken(Long userId) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpiration);
-
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", userId);
-        claims.put("username", username);
-        claims.put("role", role);
-
         return Jwts.builder()
-                .claims(claims)
-                .subject(username)
-                .issuedAt(new Date())
-                .expiration(expiryDate)
-                .signWith(getSigningKey(), Jwts.SIG.HS512)
+                .subject(String.valueOf(userId))
+                .id(UUID.randomUUID().toString()) // jti，用于吊销
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + accessExpiration))
+                .signWith(signingKey, Jwts.SIG.HS512)
                 .compact();
     }
 
-    public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return Long.parseLong(claims.get("userId").toString());
+    /**
+     * 解析并验证 token (唯一的验签入口)
+     * <p>最近验证过的 token 直接返回缓存的 claims，一个 token 在有效期内只做一次 HS512 验签与 JSON 解析</p>
+     *
+     * @param token JWT
+     * @return Claims，token 无效或已过期返回 null
+     */
+    public Claims parseClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        Claims cached = verifiedClaims.getIfPresent(token);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            verifiedClaims.put(token, claims);
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token无效
+            return null;
+        }
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.getSubject();
+    /**
+     * 从 claims 中取用户ID
+     * <p>访问令牌的 sub 即 userId；旧版本签发的令牌 (sub 为昵称) 在 userId 字段中，到期前仍然可用</p>
+     */
+    public static Long getUserId(Claims claims) {
+        Object userId = claims.get("userId");
+        return Long.parseLong(userId != null ? userId.toString() : claims.getSubject());
     }
 
-    public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return (String) claims.get("role");
+    public Long getUserIdFromToken(String token) {
+        return getUserId(requireClaims(token));
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            // Token无效
+        return parseClaims(token) != null;
+    }
+
+    private Claims requireClaims(String token) {
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            throw new JwtException("Token无效");
         }
-        return false;
+        return claims;
     }
-}
\ No newline at end of file
+}
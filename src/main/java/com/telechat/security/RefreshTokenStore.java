@@ -0,0 +1,165 @@
+package com.telechat.security;
+
+import com.telechat.constant.ExceptionConstant;
+import com.telechat.constant.RedisConstant;
+import com.telechat.exception.exceptions.LoginException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 刷新令牌
+ * <p>刷新令牌是随机生成的不透明字符串 (不是 JWT)，Redis 中只保存它的 SHA-256，库被拖走也拿不到可用的令牌。
+ * 每次使用都会轮换：旧令牌作废、签发新令牌；已轮换的令牌再次出现说明被盗用，作废该用户的全部登录会话。</p>
+ */
+@Component
+@Slf4j
+public class RefreshTokenStore {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // 轮换：令牌存在则删除并留下“已使用”标记 (有效期为旧令牌的剩余有效期)，返回 userId；
+    // 令牌不存在但有“已使用”标记，返回 "-" + userId (重放)；都不存在返回 nil
+    // KEYS: 刷新令牌, 已使用标记
+    private static final DefaultRedisScript<String> ROTATE_SCRIPT;
+
+    static {
+        ROTATE_SCRIPT = new DefaultRedisScript<>();
+        ROTATE_SCRIPT.setScriptText(
+                "local uid = redis.call('get', KEYS[1]) " +
+                "if uid then " +
+                "  local ttl = redis.call('pttl', KEYS[1]) " +
+                "  redis.call('del', KEYS[1]) " +
+                "  if ttl > 0 then redis.call('set', KEYS[2], uid, 'px', ttl) end " +
+                "  return uid " +
+                "end " +
+                "local used = redis.call('get', KEYS[2]) " +
+                "if used then return '-' .. used end " +
+                "return false");
+        ROTATE_SCRIPT.setResultType(String.class);
+    }
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    /**
+     * 签发刷新令牌
+     *
+     * @param userId 用户ID
+     * @return 刷新令牌原文 (只返回给客户端，不落库)
+     */
+    public String issue(Long userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        String hash = hash(token);
+        long lifetime = jwtTokenProvider.getJwtExpiration();
+        long expiresAt = System.currentTimeMillis() + lifetime;
+        String userKey = RedisConstant.USER_REFRESH_TOKEN + userId;
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForValue().set(RedisConstant.TOKEN_REFRESH + hash, String.valueOf(userId), lifetime, TimeUnit.MILLISECONDS);
+                operations.opsForZSet().add(userKey, hash, expiresAt);
+                // 顺手清理已过期的刷新令牌
+                operations.opsForZSet().removeRangeByScore(userKey, Double.NEGATIVE_INFINITY, System.currentTimeMillis());
+                operations.expire(userKey, lifetime, TimeUnit.MILLISECONDS);
+                return null;
+            }
+        });
+        return token;
+    }
+
+    /**
+     * 使用刷新令牌 (原子地作废旧令牌)
+     * <p>调用方随后为返回的用户签发新的访问令牌与刷新令牌</p>
+     *
+     * @param token 刷新令牌原文
+     * @return 用户ID
+     */
+    public Long rotate(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new LoginException(ExceptionConstant.USER_NOT_LOGIN_ERROR_CODE, ExceptionConstant.REFRESH_TOKEN_INVALID_MSG);
+        }
+        String hash = hash(token);
+        String result = stringRedisTemplate.execute(ROTATE_SCRIPT,
+                List.of(RedisConstant.TOKEN_REFRESH + hash, RedisConstant.TOKEN_REFRESH_USED + hash));
+        if (result == null) {
+            throw new LoginException(ExceptionConstant.USER_NOT_LOGIN_ERROR_CODE, ExceptionConstant.REFRESH_TOKEN_INVALID_MSG);
+        }
+        if (result.startsWith("-")) {
+            // 已轮换的令牌被再次使用：无法分辨哪一方是合法客户端，全部下线
+            Long userId = Long.parseLong(result.substring(1));
+            log.warn("刷新令牌被重复使用，作废用户 {} 的全部登录会话", userId);
+            revokeAll(userId);
+            tokenRevocationRegistry.revokeAll(userId);
+            throw new LoginException(ExceptionConstant.USER_NOT_LOGIN_ERROR_CODE, ExceptionConstant.REFRESH_TOKEN_REUSED_MSG);
+        }
+        Long userId = Long.parseLong(result);
+        stringRedisTemplate.opsForZSet().remove(RedisConstant.USER_REFRESH_TOKEN + userId, hash);
+        return userId;
+    }
+
+    /**
+     * 作废一个刷新令牌 (退出登录)
+     *
+     * @param token 刷新令牌原文
+     */
+    public void revoke(String token) {
+        if (token == null || token.isEmpty()) {
+            return;
+        }
+        String hash = hash(token);
+        String userId = stringRedisTemplate.opsForValue().getAndDelete(RedisConstant.TOKEN_REFRESH + hash);
+        if (userId != null) {
+            stringRedisTemplate.opsForZSet().remove(RedisConstant.USER_REFRESH_TOKEN + userId, hash);
+        }
+    }
+
+    /**
+     * 作废用户的全部刷新令牌 (修改密码、检测到重放)
+     *
+     * @param userId 用户ID
+     */
+    public void revokeAll(Long userId) {
+        String userKey = RedisConstant.USER_REFRESH_TOKEN + userId;
+        Set<String> hashes = stringRedisTemplate.opsForZSet().range(userKey, 0, -1);
+        if (hashes != null && !hashes.isEmpty()) {
+            stringRedisTemplate.delete(hashes.stream().map(hash -> RedisConstant.TOKEN_REFRESH + hash).toList());
+        }
+        stringRedisTemplate.delete(userKey);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // 所有 JRE 都必须提供 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.telechat.security;
+
+import com.telechat.constant.RedisConstant;
+import com.telechat.util.BloomFilter;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * token 吊销与登录会话登记
+ * <p>JWT 本身无状态，退出登录、修改密码、冻结账号时把 token 的 jti 写入 Redis 吊销列表 (过期时间为 token 剩余有效期)。
+ * 每个请求先查本地布隆过滤器：绝大多数 token 不在吊销列表中，不需要访问 Redis；只有布隆过滤器判定“可能已吊销”时才查一次 Redis 确认。</p>
+ * <p>吊销时通过 Redis 发布订阅广播 jti，各节点 (包括自己) 立即加入本地布隆过滤器；
+ * 另有定时任务按 Redis 中的索引整体重建，补上丢失的广播并清理已过期的 jti。</p>
+ * <p>没有 jti 的旧 token (上线前签发) 无法吊销，到期后自然失效。</p>
+ */
+@Component
+@Slf4j
+public class TokenRevocationRegistry implements MessageListener {
+
+    // 布隆过滤器误判率：误判只会多一次 Redis 查询
+    private static final double FPP = 0.001;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    // 布隆过滤器的最小容量 (实际容量取它与吊销数量两倍中的较大者)
+    @Value("${telechat.jwt.revocation-expected-size:100000}")
+    private long expectedSize;
+
+    // 已吊销 jti 的本地布隆过滤器，启动时重建之前为空
+    private volatile BloomFilter revoked = new BloomFilter(1, FPP);
+
+    // 重建期间收到的广播同时写入新的过滤器，避免重建与广播交错时漏掉
+    private volatile BloomFilter rebuilding;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(RedisConstant.TOKEN_REVOKED_CHANNEL));
+        rebuild();
+    }
+
+    /**
+     * 登记一个登录会话 (登录签发 token 后)
+     *
+     * @param userId 用户ID
+     * @param claims 新签发 token 的 claims
+     */
+    public void register(Long userId, Claims claims) {
+        if (claims == null || claims.getId() == null) {
+            return;
+        }
+        String key = RedisConstant.USER_TOKEN + userId;
+        long expiresAt = claims.getExpiration().getTime();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForZSet().add(key, claims.getId(), expiresAt);
+                // 顺手清理已过期的会话
+                operations.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, System.currentTimeMillis());
+                operations.expire(key, Math.max(expiresAt - System.currentTimeMillis(), 1), TimeUnit.MILLISECONDS);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * token 是否已吊销
+     * <p>布隆过滤器判定不存在时直接返回 (无网络开销)，判定可能存在时查 Redis 确认</p>
+     *
+     * @param claims 验签通过的 claims
+     * @return boolean
+     */
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        if (jti == null || !revoked.mightContain(jti)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(RedisConstant.TOKEN_REVOKED + jti));
+    }
+
+    /**
+     * 吊销一个 token (退出登录)，并从该用户的会话登记中移除
+     *
+     * @param claims 要吊销的 token 的 claims
+     */
+    public void revoke(Claims claims) {
+        if (claims == null || claims.getId() == null) {
+            return;
+        }
+        revoke(claims.getId(), claims.getExpiration().getTime());
+        stringRedisTemplate.opsForZSet().remove(RedisConstant.USER_TOKEN + JwtTokenProvider.getUserId(claims), claims.getId());
+    }
+
+    /**
+     * 吊销用户的全部登录会话 (修改密码、冻结账号)
+     *
+     * @param userId 用户ID
+     * @return 吊销的会话数
+     */
+    public int revokeAll(Long userId) {
+        String key = RedisConstant.USER_TOKEN + userId;
+        Set<ZSetOperations.TypedTuple<String>> sessions = stringRedisTemplate.opsForZSet()
+                .rangeByScoreWithScores(key, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        int count = 0;
+        if (sessions != null) {
+            for (ZSetOperations.TypedTuple<String> session : sessions) {
+                revoke(session.getValue(), session.getScore().longValue());
+                count++;
+            }
+        }
+        stringRedisTemplate.delete(key);
+        log.info("已吊销用户 {} 的 {} 个登录会话", userId, count);
+        return count;
+    }
+
+    private void revoke(String jti, long expiresAt) {
+        long remaining = expiresAt - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return;
+        }
+        // 先写吊销列表与索引，再广播：收到广播的节点重建时一定能读到索引
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForValue().set(RedisConstant.TOKEN_REVOKED + jti, "1", remaining, TimeUnit.MILLISECONDS);
+                operations.opsForZSet().add(RedisConstant.TOKEN_REVOKED_INDEX, jti, expiresAt);
+                return null;
+            }
+        });
+        addLocal(jti);
+        try {
+            stringRedisTemplate.convertAndSend(RedisConstant.TOKEN_REVOKED_CHANNEL, jti);
+        } catch (Exception e) {
+            // 其他节点在下次重建时补上
+            log.error("token 吊销广播失败: jti={}", jti, e);
+        }
+    }
+
+    /**
+     * 收到吊销广播 (自己发出的也会收到，重复加入无副作用)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        addLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void addLocal(String jti) {
+        revoked.put(jti);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(jti);
+        }
+    }
+
+    /**
+     * 按 Redis 中的吊销索引整体重建本地布隆过滤器 (清理已过期的 jti，补上丢失的广播)
+     */
+    @Scheduled(fixedDelayString = "${telechat.jwt.revocation-refresh-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void rebuild() {
+        try {
+            stringRedisTemplate.opsForZSet().removeRangeByScore(
+                    RedisConstant.TOKEN_REVOKED_INDEX, Double.NEGATIVE_INFINITY, System.currentTimeMillis());
+            Long size = stringRedisTemplate.opsForZSet().zCard(RedisConstant.TOKEN_REVOKED_INDEX);
+            BloomFilter next = new BloomFilter(Math.max(expectedSize, size == null ? 0 : size * 2), FPP);
+            rebuilding = next;
+            Set<String> jtis = stringRedisTemplate.opsForZSet().range(RedisConstant.TOKEN_REVOKED_INDEX, 0, -1);
+            if (jtis != null) {
+                jtis.forEach(next::put);
+            }
+            revoked = next;
+        } catch (Exception e) {
+            // 保留旧的过滤器，下次重建时重试
+            log.error("token 吊销列表重建失败", e);
+        } finally {
+            rebuilding = null;
+        }
+    }
+}
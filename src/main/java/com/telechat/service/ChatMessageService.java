@@ -0,0 +1,31 @@
+package com.telechat.service;
+
+import com.telechat.pojo.dto.ws.ChatMessageNotification;
+import com.telechat.pojo.result.CursorResult;
+import com.telechat.pojo.vo.MessageVO;
+
+public interface ChatMessageService {
+    /**
+     * 发送聊天消息
+     * 分配雪花ID -> 推送给会话在线成员 -> 进入批量落库队列
+     *
+     * @param senderId       发送者ID
+     * @param conversationId 会话ID
+     * @param content        消息内容
+     * @param messageType    消息类型 (为空时默认为 text)
+     * @param clientMsgId    客户端本地消息ID (可为空)
+     * @return ChatMessageNotification 已推送的消息
+     */
+    ChatMessageNotification send(Long senderId, Long conversationId, String content, String messageType, String clientMsgId);
+
+    /**
+     * 查询会话历史消息 (按消息ID倒序，游标分页)
+     *
+     * @param userId         用户ID
+     * @param conversationId 会话ID
+     * @param before         游标：只返回 ID 小于它的消息，为空时从最新一条开始
+     * @param limit          每页条数
+     * @return CursorResult<MessageVO>
+     */
+    CursorResult<MessageVO> history(Long userId, Long conversationId, Long before, Integer limit);
+}
@@ -1,9 +1,9 @@
 package com.telechat.service;
 
 import com.telechat.pojo.dto.contact.ContactApplyHandleDTO;
+import com.telechat.pojo.result.CursorResult;
 import com.telechat.pojo.vo.ContactApplyVO;
 
-import java.util.List;
 
 public interface ContactApplyService {
     /**
@@ -16,12 +16,15 @@ public interface ContactApplyService {
     boolean addContactApply(Long userId, String contactUserName);
 
     /**
-    * 获取联系人申请列表【未处理】
+    * 获取联系人申请列表【未处理】(按申请时间倒序，游标分页)
      * @param userId 用户ID
+     * @param before   游标：上一页返回的 nextCursor，为空时从最新开始
+     * @param beforeId 游标：上一页返回的 nextCursorId (最后一条申请的ID)
+     * @param limit    每页条数
      *
-     * @return List<ContactApplyVO>
+     * @return CursorResult<ContactApplyVO>
     * */
-    List<ContactApplyVO> applyList(Long userId);
+    CursorResult<ContactApplyVO> applyList(Long userId, Long before, Long beforeId, Integer limit);
 
     /**
     * 处理联系人申请
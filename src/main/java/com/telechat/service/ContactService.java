@@ -1,18 +1,18 @@
 package com.telechat.service;
 
 import com.telechat.pojo.dto.contact.UpdateContactDTO;
-import com.telechat.pojo.vo.ContactVO;
-
-import java.util.List;
+import com.telechat.pojo.result.PageResult;
 
 public interface ContactService {
     /**
-     * 获取联系人列表
+     * 分页获取联系人列表 (按添加顺序)
      *
      * @param userId 用户ID
-     * @return List<ContactVO>
+     * @param cursor 游标：上一页最后一个联系人的 id，为空时从头开始
+     * @param size   每页条数
+     * @return PageResult total: 联系人总数, records: List<ContactVO>
      */
-    List<ContactVO> list(Long userId);
+    PageResult list(Long userId, Long cursor, Integer size);
 
     /**
      * 删除联系人
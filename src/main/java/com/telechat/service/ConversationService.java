@@ -0,0 +1,47 @@
+package com.telechat.service;
+
+import com.telechat.pojo.dto.conversation.CreateGroupDTO;
+import com.telechat.pojo.result.CursorResult;
+import com.telechat.pojo.vo.ConversationVO;
+
+import java.util.Map;
+
+public interface ConversationService {
+    /**
+     * 创建群聊
+     * 创建者为群主，邀请的用户为普通成员
+     *
+     * @param ownerId        创建者ID
+     * @param createGroupDTO 群聊信息
+     * @return Long 会话ID
+     */
+    Long createGroup(Long ownerId, CreateGroupDTO createGroupDTO);
+
+    /**
+     * 获取用户全部会话的未读数 (会话列表角标)
+     *
+     * @param userId 用户ID
+     * @return Map<Long, Long> key: conversationId, value: 未读数 (没有未读的会话不包含在内)
+     */
+    Map<Long, Long> unreadCounts(Long userId);
+
+    /**
+     * 标记会话已读
+     *
+     * @param userId            用户ID
+     * @param conversationId    会话ID
+     * @param lastReadMessageId 已读到的消息ID，为空时视为已读到最后一条
+     */
+    void markRead(Long userId, Long conversationId, Long lastReadMessageId);
+
+    /**
+     * 会话列表 (按最后一条消息时间倒序，游标分页)
+     *
+     * @param userId   用户ID
+     * @param before   游标：上一页的 nextCursor (最后一个会话的 sortKey)，为空时从最新开始
+     * @param beforeId 游标：上一页的 nextCursorId (最后一个会话的ID)
+     * @param limit    每页条数
+     * @return CursorResult<ConversationVO>
+     */
+    CursorResult<ConversationVO> list(Long userId, Long before, Long beforeId, Integer limit);
+}
@@ -4,6 +4,7 @@ import com.telechat.pojo.dto.LoginDTO;
 import com.telechat.pojo.dto.RegisterDTO;
 import com.telechat.pojo.dto.ResetPasswordDTO;
 import com.telechat.pojo.entity.User;
+import com.telechat.pojo.vo.TokenVO;
 
 
 public interface UserAuthsService {
@@ -24,9 +25,25 @@ public interface UserAuthsService {
      * 登录
      *
      * @param loginDTO 登录信息
-     * @return token
+     * @return 访问令牌与刷新令牌
      */
-    String login(LoginDTO loginDTO);
+    TokenVO login(LoginDTO loginDTO);
+
+    /**
+     * 用刷新令牌换取新的访问令牌与刷新令牌 (旧刷新令牌作废)
+     *
+     * @param refreshToken 刷新令牌
+     * @return 访问令牌与刷新令牌
+     */
+    TokenVO refresh(String refreshToken);
+
+    /**
+     * 退出登录 (吊销当前访问令牌与刷新令牌)
+     *
+     * @param token        当前请求的访问令牌
+     * @param refreshToken 刷新令牌，可为空
+     */
+    void logout(String token, String refreshToken);
 
     /**
      * 重置密码
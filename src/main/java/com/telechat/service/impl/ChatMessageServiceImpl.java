@@ -0,0 +1,200 @@
+package com.telechat.service.impl;
+
+import com.telechat.constant.ExceptionConstant;
+import com.telechat.exception.exceptions.MessageException;
+import com.telechat.mapper.dao.ChatMessageDao;
+import com.telechat.pojo.cache.ChatMessageCache;
+import com.telechat.pojo.cache.ConversationInfoCache;
+import com.telechat.pojo.cache.ConversationUserCache;
+import com.telechat.pojo.dto.ws.ChatMessageNotification;
+import com.telechat.pojo.entity.ChatMessage;
+import com.telechat.pojo.enums.ConversationStatus;
+import com.telechat.pojo.enums.ConversationType;
+import com.telechat.pojo.result.CursorResult;
+import com.telechat.pojo.vo.MessageVO;
+import com.telechat.properties.ChatProperties;
+import com.telechat.service.ChatMessageService;
+import com.telechat.util.RedisTemplateUtil;
+import com.telechat.util.SnowflakeIdGenerator;
+import com.telechat.websocket.ChatMessageBatchWriter;
+import com.telechat.websocket.MessageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class ChatMessageServiceImpl implements ChatMessageService {
+
+    private static final String DEFAULT_MESSAGE_TYPE = "text";
+
+    // 历史消息默认每页条数
+    private static final int DEFAULT_HISTORY_LIMIT = 20;
+
+    @Autowired
+    private RedisTemplateUtil redisTemplateUtil;
+
+    @Autowired
+    private ChatMessageDao chatMessageDao;
+
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Autowired
+    private ChatMessageBatchWriter chatMessageBatchWriter;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ChatProperties chatProperties;
+
+    /**
+     * 发送聊天消息
+     * <p>消息先推送、后异步批量落库：推送与落库共用同一个雪花ID，
+     * 客户端可以用它去重，也可以用它作为历史消息的游标。</p>
+     */
+    @Override
+    public ChatMessageNotification send(Long senderId, Long conversationId, String content, String messageType, String clientMsgId) {
+        // 1. 基础校验
+        if (content == null || content.isBlank()) {
+            throw new MessageException(ExceptionConstant.Judge_Query_Exception_Code, ExceptionConstant.MESSAGE_EMPTY_MSG);
+        }
+        if (content.length() > chatProperties.getMaxContentLength()) {
+            throw new MessageException(ExceptionConstant.Judge_Query_Exception_Code, ExceptionConstant.MESSAGE_TOO_LONG_MSG);
+        }
+
+        // 2. 校验会话状态与成员身份 (走缓存，不逐条查库；成员缓存中只有未退出的成员)
+        ConversationInfoCache conversation = redisTemplateUtil.getConversationInfoCache(conversationId);
+        if (conversation == null) {
+            throw new MessageException(ExceptionConstant.NOT_EXIST_CODE, ExceptionConstant.CHAT_CONVERSATION_NOT_EXIST_MSG);
+        }
+        if (conversation.getStatus() != ConversationStatus.NORMAL) {
+            throw new MessageException(ExceptionConstant.NOT_ALLOWED_CODE, ExceptionConstant.CONVERSATION_NOT_AVAILABLE_MSG);
+        }
+        Map<Long, ConversationUserCache> members = redisTemplateUtil.getConversationMemberCache(conversationId);
+        if (!members.containsKey(senderId)) {
+            throw new MessageException(ExceptionConstant.NOT_ALLOWED_CODE, ExceptionConstant.NOT_CONVERSATION_MEMBER_MSG);
+        }
+
+        // 3. 分配 ID 并进入批量落库队列
+        long messageId = snowflakeIdGenerator.nextId();
+        LocalDateTime now = LocalDateTime.now();
+        String type = (messageType == null || messageType.isBlank()) ? DEFAULT_MESSAGE_TYPE : messageType;
+
+        ChatMessage chatMessage = ChatMessage.builder()
+                .id(messageId)
+                .conversationId(conversationId)
+                .senderId(senderId)
+                .content(content)
+                .messageType(type)
+                .createTime(now)
+                .build();
+        if (!chatMessageBatchWriter.submit(chatMessage)) {
+            log.warn("聊天消息写队列已满，拒绝发送: conversationId={}", conversationId);
+            throw new MessageException(ExceptionConstant.TOO_BUSY_CODE, ExceptionConstant.TOO_BUSY_MSG);
+        }
+
+        // 4. 推送给会话成员 (包括发送者自己的其他终端)
+        ChatMessageNotification notification = ChatMessageNotification.builder()
+                .messageId(messageId)
+                .conversationId(conversationId)
+                .senderId(senderId)
+                .content(content)
+                .messageType(type)
+                .clientMsgId(clientMsgId)
+                .createTime(now)
+                .build();
+        // 群聊中开启免打扰的成员不实时推送，打开会话时通过历史消息拉取；私聊照常推送
+        boolean group = conversation.getType() == ConversationType.GROUP;
+        List<Long> receiverIds = new ArrayList<>(members.size());
+        for (ConversationUserCache member : members.values()) {
+            if (!group || !member.isMuted() || member.getUserId().equals(senderId)) {
+                receiverIds.add(member.getUserId());
+            }
+        }
+        messageService.sendChatMessage(conversationId, receiverIds, notification);
+
+        return notification;
+    }
+
+    /**
+     * 查询会话历史消息
+     * <p>1. 一次 Pipeline 读取成员身份 + 最近 N 条消息缓存，打开会话的常见情况到此为止；
+     * 2. 缓存不够或翻到更早的消息时，按 (conversation_id, id) 索引做一次范围扫描；
+     * 3. 打开会话 (before 为空) 且缓存不存在时，顺带把最近 N 条写回缓存。</p>
+     */
+    @Override
+    public CursorResult<MessageVO> history(Long userId, Long conversationId, Long before, Integer limit) {
+        int pageSize = (limit == null || limit <= 0)
+                ? DEFAULT_HISTORY_LIMIT
+                : Math.min(limit, chatProperties.getHistoryMaxLimit());
+        int cacheSize = chatProperties.getRecentCacheSize();
+
+        // 1. 成员身份 + 最近消息 (一次往返)
+        RedisTemplateUtil.HistorySnapshot snapshot = redisTemplateUtil.getHistorySnapshot(conversationId, userId);
+        boolean isMember = snapshot.membersCached()
+                ? snapshot.member()
+                : redisTemplateUtil.getConversationMemberCache(conversationId).containsKey(userId);
+        if (!isMember) {
+            throw new MessageException(ExceptionConstant.NOT_ALLOWED_CODE, ExceptionConstant.NOT_CONVERSATION_MEMBER_MSG);
+        }
+
+        // 2. 缓存命中：凑够一页，或者缓存不满 N 条 (说明会话的全部消息都在缓存里)
+        List<ChatMessageCache> recent = snapshot.recent();
+        if (!recent.isEmpty()) {
+            List<MessageVO> records = new ArrayList<>(pageSize);
+            for (ChatMessageCache message : recent) {
+                if (before == null || message.getMessageId() < before) {
+                    records.add(toMessageVO(conversationId, message));
+                    if (records.size() == pageSize) {
+                        break;
+                    }
+                }
+            }
+            if (records.size() == pageSize || recent.size() < cacheSize) {
+                return toCursorResult(records, records.size() == pageSize);
+            }
+        }
+
+        // 3. 回源：一次索引范围扫描，多取一条用于判断是否还有更多
+        boolean fillCache = before == null && recent.isEmpty();
+        int fetchSize = fillCache ? Math.max(pageSize + 1, cacheSize) : pageSize + 1;
+        List<ChatMessage> rows = chatMessageDao.selectHistory(conversationId, before, fetchSize);
+
+        if (fillCache) {
+            List<ChatMessageCache> newest = rows.stream()
+                    .limit(cacheSize)
+                    .map(redisTemplateUtil::toChatMessageCache)
+                    .toList();
+            redisTemplateUtil.loadRecentMessages(conversationId, snapshot.version(), newest);
+        }
+
+        List<MessageVO> records = rows.stream()
+                .limit(pageSize)
+                .map(m -> toMessageVO(conversationId, redisTemplateUtil.toChatMessageCache(m)))
+                .toList();
+        return toCursorResult(records, rows.size() > pageSize);
+    }
+
+    private MessageVO toMessageVO(Long conversationId, ChatMessageCache message) {
+        return MessageVO.builder()
+                .id(message.getMessageId())
+                .conversationId(conversationId)
+                .senderId(message.getSenderId())
+                .content(message.getContent())
+                .messageType(message.getMessageType())
+                .createTime(message.getCreateTime())
+                .build();
+    }
+
+    private CursorResult<MessageVO> toCursorResult(List<MessageVO> records, boolean hasMore) {
+        Long nextCursor = hasMore ? records.get(records.size() - 1).getId() : null;
+        return new CursorResult<>(records, nextCursor, hasMore);
+    }
+}
@@ -15,6 +15,7 @@ import com.telechat.mapper.dao.ContactDao;
 import com.telechat.mapper.dao.ConversationDao;
 import com.telechat.mapper.dao.ConversationMemberDao;
 import com.telechat.pojo.cache.ContactApplyCache;
+import com.telechat.pojo.cache.ContactsCache;
 import com.telechat.pojo.cache.UserInfoCache;
 import com.telechat.pojo.dto.contact.ContactApplyHandleDTO;
 import com.telechat.pojo.dto.ws.ContactApplyNotification;
@@ -22,10 +23,12 @@ import com.telechat.pojo.entity.*;
 import com.telechat.pojo.enums.ContactApplyStatus;
 import com.telechat.pojo.enums.ConversationStatus;
 import com.telechat.pojo.enums.ConversationType;
+import com.telechat.pojo.result.CursorResult;
 import com.telechat.pojo.vo.ContactApplyVO;
 import com.telechat.service.ContactApplyService;
 import com.telechat.service.UserService;
 import com.telechat.util.RedisTemplateUtil;
+import com.telechat.websocket.CounterPushCoalescer;
 import com.telechat.websocket.MessageService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,6 +49,9 @@ import java.util.stream.Collectors;
 @Service
 public class ContactApplyServiceImpl implements ContactApplyService {
 
+    private static final int DEFAULT_APPLY_PAGE_SIZE = 20;
+    private static final int MAX_APPLY_PAGE_SIZE = 100;
+
     @Autowired
     private UserService userService;
 
@@ -66,14 +72,19 @@ public class ContactApplyServiceImpl implements ContactApplyService {
 
     @Autowired
     private MessageService messageService;
+
+    @Autowired
+    private CounterPushCoalescer counterPushCoalescer;
     @Autowired
     private ContactApplyMapper contactApplyMapper;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     @FrequencyLock(
-            key = "'lock:contact:apply:' + #userId + ':' + #contactUserName",
-            waitTime = 0,
+            key = "'contact:apply:' + #userId + ':' + #contactUserName",
+            mode = FrequencyLock.Mode.SLIDING_WINDOW,
+            limit = 1,
+            window = 3,
             msg = "请勿重复提交申请"
     )
     public boolean addContactApply(Long userId, String contactUserName) {
@@ -121,7 +132,9 @@ public class ContactApplyServiceImpl implements ContactApplyService {
 
         // 场景 B：正常申请逻辑
         ContactApply existingApply = contactApplyDao.selectByUserIdAndFriendId(userId, contactId);
-        Long finalApplyId;
+        ContactApply finalApply;
+        // 接收者的未读申请数是否 +1 (新申请，或重新发起的申请由已读变回未读)
+        boolean unreadAdded;
 
         if (existingApply == null) {
             ContactApply newApply = ContactApply.builder()
@@ -131,25 +144,31 @@ public class ContactApplyServiceImpl implements ContactApplyService {
                     .isRead(false)
                     .build();
             contactApplyDao.insert(newApply);
-            finalApplyId = newApply.getId();
+            finalApply = newApply;
+            unreadAdded = true;
         } else {
             // 如果已存在记录，仅在非 PENDING 状态下更新，防止重复刷
+            unreadAdded = existingApply.getStatus() != ContactApplyStatus.PENDING
+                    && !Boolean.FALSE.equals(existingApply.getIsRead());
             if (existingApply.getStatus() != ContactApplyStatus.PENDING) {
                 existingApply.setStatus(ContactApplyStatus.PENDING);
                 existingApply.setIsRead(false);
                 existingApply.setCreatedTime(now); // 更新时间以便排在最前
                 contactApplyDao.updateById(existingApply);
             }
-            finalApplyId = existingApply.getId();
+            finalApply = existingApply;
         }
+        Long finalApplyId = finalApply.getId();
 
-        // 清除接收者的申请列表缓存
-        redisTemplateUtil.deleteContactApplyCache(contactId);
-
-        // 注册事务回调发送 WebSocket
+        // 注册事务回调：申请增量写入接收者的申请列表缓存与未读数，并发送 WebSocket
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
+                redisTemplateUtil.putContactApplyCache(contactId, redisTemplateUtil.toContactApplyCache(finalApply));
+                if (unreadAdded) {
+                    redisTemplateUtil.incrementContactApplyUnread(contactId, 1);
+                    counterPushCoalescer.contactApply(contactId, 1);
+                }
                 try {
                     ContactApplyNotification notification = ContactApplyNotification.builder()
                             .applyId(finalApplyId)
@@ -171,15 +190,23 @@ public class ContactApplyServiceImpl implements ContactApplyService {
     /**
      * 获取联系人申请列表【未处理】
      * 优化：解决了 N+1 查询问题
+     * <p>分页：申请按时间存入 ZSET (score 为申请时间戳毫秒)，内容存入 HASH，
+     * 一页是 ZREVRANGEBYSCORE + HMGET，只为本页的发起人批量查用户信息。
+     * 游标是 (申请时间戳毫秒, 申请ID)，同一毫秒内的多条申请跨页时不会漏掉。</p>
      */
-    @Override // todo 分页获取请求，redis如何进行分页数据的缓存和获取？
-    public List<ContactApplyVO> applyList(Long userId) {
-        // 查询所有发给我的申请 (注意：这里 userId 应该是 receiver/friendId)
-        // 假设 selectApplyList 的 SQL 逻辑是 WHERE friend_id = #{userId} AND status = #{status}
-        // 使用枚举对象传参，MybatisPlus 会自动处理
+    @Override
+    public CursorResult<ContactApplyVO> applyList(Long userId, Long before, Long beforeId, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_APPLY_PAGE_SIZE : Math.min(limit, MAX_APPLY_PAGE_SIZE);
+        if (before != null && before <= 0) {
+            return new CursorResult<>(List.of(), null, false);
+        }
 
-        // 1. 从缓存中读取（方法已内置缓存写入，并解决了缓存穿透等问题）
-        List<ContactApplyCache> contactApplyCacheList = redisTemplateUtil.getContactApplyCache(userId);
+        // 1. 从缓存中读取一页 (多取一个判断是否还有更多；方法已内置回源与缓存写入，并解决了缓存穿透等问题)
+        List<ContactApplyCache> contactApplyCacheList = redisTemplateUtil.getContactApplyPage(userId, before, beforeId, pageSize + 1);
+        boolean hasMore = contactApplyCacheList.size() > pageSize;
+        if (hasMore) {
+            contactApplyCacheList = contactApplyCacheList.subList(0, pageSize);
+        }
 
 
         // 2. 提取发起人的 ID 集合
@@ -192,7 +219,7 @@ public class ContactApplyServiceImpl implements ContactApplyService {
         Map<Long, UserInfoCache> userMap = redisTemplateUtil.getUserInfoCacheMapByIds(senderIds);
 
         // 4. 组装 VO
-        return contactApplyCacheList.stream().map(apply -> {
+        List<ContactApplyVO> records = contactApplyCacheList.stream().map(apply -> {
             UserInfoCache sender = userMap.get(apply.getUserId());
             return ContactApplyVO.builder()
                     .id(apply.getContactApplyId())
@@ -203,6 +230,11 @@ public class ContactApplyServiceImpl implements ContactApplyService {
                     .createTime(apply.getCreatedTime())
                     .build();
         }).collect(Collectors.toList());
+        if (!hasMore) {
+            return new CursorResult<>(records, null, false);
+        }
+        ContactApplyCache last = contactApplyCacheList.get(contactApplyCacheList.size() - 1);
+        return new CursorResult<>(records, RedisTemplateUtil.contactApplyScore(last), last.getContactApplyId(), true);
     }
 
     /**
@@ -239,21 +271,30 @@ public class ContactApplyServiceImpl implements ContactApplyService {
             throw new ContactException(ExceptionConstant.NOT_ALLOWED_CODE, ExceptionConstant.CONTACT_ALREADY_HANDLE_EXCEPTION_MSG);
         }
 
+        // 处理过的申请视为已读，未读申请数随之 -1
+        boolean wasUnread = Boolean.FALSE.equals(contactApply.getIsRead());
+        contactApply.setIsRead(true);
+
         // 2. 拒绝逻辑
         if (!dto.isAgree()) {
             contactApply.setStatus(ContactApplyStatus.REJECTED);
             contactApplyDao.updateById(contactApply);
-            // 联系人申请缓存失效
-            redisTemplateUtil.deleteContactApplyCache(userId);
+            // 事务提交后从申请列表缓存中移除这条申请
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    redisTemplateUtil.removeContactApplyCache(userId, applyId);
+                    if (wasUnread) {
+                        redisTemplateUtil.incrementContactApplyUnread(userId, -1);
+                        counterPushCoalescer.contactApply(userId, -1);
+                    }
+                }
+            });
             return true;
         }
 
         // 3. 同意逻辑
-        // 双方建立了关系，缓存失效（联系人及联系申请缓存）
-        redisTemplateUtil.deleteContactCache(
-                List.of(contactApply.getUserId(), contactApply.getFriendId())
-        );
-        redisTemplateUtil.deleteContactApplyCache(userId);
+        // 申请列表缓存与双方的联系人缓存都在事务提交后增量更新
         LocalDateTime now = LocalDateTime.now();
 
         // 3.1 更新申请状态
@@ -309,18 +350,41 @@ public class ContactApplyServiceImpl implements ContactApplyService {
         conversationMemberDao.insert(memberA);
         conversationMemberDao.insert(memberB);
 
+        // 3.5 事务提交后移除已处理的申请，把新联系人写入双方的联系人缓存，新会话加入双方的会话列表
+        Long conversationId = conversation.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                redisTemplateUtil.removeContactApplyCache(userId, applyId);
+                if (wasUnread) {
+                    redisTemplateUtil.incrementContactApplyUnread(userId, -1);
+                    counterPushCoalescer.contactApply(userId, -1);
+                }
+                redisTemplateUtil.putContactCache(contactForSender.getUserId(), ContactsCache.builder()
+                        .contactId(contactForSender.getId())
+                        .friendId(contactForSender.getFriendId())
+                        .build());
+                redisTemplateUtil.putContactCache(contactForReceiver.getUserId(), ContactsCache.builder()
+                        .contactId(contactForReceiver.getId())
+                        .friendId(contactForReceiver.getFriendId())
+                        .build());
+                redisTemplateUtil.touchUserConversations(
+                        List.of(contactApply.getUserId(), contactApply.getFriendId()), conversationId, now);
+            }
+        });
+
         return true;
     }
 
     /**
      * 查询未读好友请求数量
+     * <p>客户端轮询角标，读 Redis 计数；计数不存在时才查库重建</p>
      *
      * @param userId                用户ID
      * @return Long
      */
     public Long getUnreadCount(Long userId) {
-        // 直接查 DB (有了索引速度很快)
-        return contactApplyDao.getUnreadContactApplyCount(userId);
+        return redisTemplateUtil.getContactApplyUnreadCount(userId);
     }
 
     /**
@@ -331,5 +395,13 @@ public class ContactApplyServiceImpl implements ContactApplyService {
     @Transactional
     public void markAllAsRead(Long userId) {
         contactApplyDao.markAll(userId);
+        // 事务提交后未读计数归零
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                redisTemplateUtil.resetContactApplyUnread(userId);
+                counterPushCoalescer.contactApplyReset(userId);
+            }
+        });
     }
 }
@@ -18,6 +18,7 @@ import com.telechat.pojo.dto.contact.UpdateContactDTO;
 import com.telechat.pojo.entity.Contact;
 import com.telechat.pojo.entity.ConversationMember;
 import com.telechat.pojo.entity.User;
+import com.telechat.pojo.result.PageResult;
 import com.telechat.pojo.vo.ContactVO;
 import com.telechat.service.ContactService;
 import com.telechat.util.RedisTemplateUtil;
@@ -54,19 +55,28 @@ public class ContactServiceImpl implements ContactService {
     @Resource
     private RedisTemplateUtil redisTemplateUtil;
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     /**
-     * 获取联系人列表
+     * 分页获取联系人列表
+     * <p>联系人关系在 Redis 中按添加顺序分页，只批量获取本页好友的用户信息</p>
      *
      * @param userId 用户ID
-     * @return List<ContactVO>
+     * @param cursor 游标：上一页最后一个联系人的 id
+     * @param size   每页条数
+     * @return PageResult
      */
-    @Override// todo 分页获取请求
-    public List<ContactVO> list(Long userId) {
-        // 1. 获取好友关系列表 (从 Redis，仅包含 IDs)
-        List<ContactsCache> relationCaches = redisTemplateUtil.getContactCache(userId);
+    @Override
+    public PageResult list(Long userId, Long cursor, Integer size) {
+        int pageSize = (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+
+        // 1. 获取一页好友关系 (从 Redis，仅包含 IDs)
+        RedisTemplateUtil.ContactPage page = redisTemplateUtil.getContactPage(userId, cursor, pageSize);
+        List<ContactsCache> relationCaches = page.contacts();
 
         if (relationCaches.isEmpty()) {
-            return Collections.emptyList();
+            return new PageResult(page.total(), Collections.emptyList());
         }
 
         // 2. 提取所有好友 ID
@@ -79,7 +89,7 @@ public class ContactServiceImpl implements ContactService {
         Map<Long, UserInfoCache> userInfoMap = redisTemplateUtil.getUserInfoCacheMapByIds(friendIds);
 
         // 4. 组装最终 VO
-        return relationCaches.stream().map(relation -> {
+        List<ContactVO> records = relationCaches.stream().map(relation -> {
             UserInfoCache info = userInfoMap.get(relation.getFriendId());
 
             // 处理 info 可能为 null 的情况（例如用户注销了，或者数据库脏数据）
@@ -98,6 +108,7 @@ public class ContactServiceImpl implements ContactService {
                     .bio(bio)                     // 签名来自实体缓存
                     .build();
         }).collect(Collectors.toList());
+        return new PageResult(page.total(), records);
     }
 
     /**
@@ -140,14 +151,15 @@ public class ContactServiceImpl implements ContactService {
             TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
                 @Override
                 public void afterCommit() {
-                    redisTemplateUtil.deleteContactCache(userId);
+                    // 只删除这一个联系人，不整体失效
+                    redisTemplateUtil.removeContactCache(userId, contact.getId());
                     // Todo IM 特性：如果集成了 WebSocket，在这里推送一条同步指令给当前用户的各个终端
                     // webSocketMessageService.sendSyncCommandToUser(userId, "CONTACT_DELETED", id);
                 }
             });
         } else {
             // 如果由于某种原因没有事务，直接删缓存
-            redisTemplateUtil.deleteContactCache(userId);
+            redisTemplateUtil.removeContactCache(userId, contact.getId());
         }
 
         return true;
@@ -176,8 +188,18 @@ public class ContactServiceImpl implements ContactService {
             contact.setRemark("");
         contactDao.updateById(contact);
 
-        // 用户联系人列表缓存信息失效
-        redisTemplateUtil.deleteContactCache(userId);
+        // 事务提交后只更新这一个联系人的备注，不整体失效
+        ContactsCache contactsCache = ContactsCache.builder()
+                .contactId(contact.getId())
+                .friendId(contact.getFriendId())
+                .remark(contact.getRemark())
+                .build();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                redisTemplateUtil.putContactCache(userId, contactsCache);
+            }
+        });
 
         return true;
     }
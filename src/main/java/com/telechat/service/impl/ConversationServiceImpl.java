@@ -0,0 +1,280 @@
+package com.telechat.service.impl;
+
+import com.telechat.constant.ExceptionConstant;
+import com.telechat.exception.exceptions.ConversationException;
+import com.telechat.mapper.dao.ChatMessageDao;
+import com.telechat.mapper.dao.ConversationDao;
+import com.telechat.mapper.dao.ConversationMemberDao;
+import com.telechat.mapper.dao.UserDao;
+import com.telechat.pojo.dto.UnreadCountDTO;
+import com.telechat.pojo.dto.conversation.CreateGroupDTO;
+import com.telechat.pojo.entity.Conversation;
+import com.telechat.pojo.entity.ConversationMember;
+import com.telechat.pojo.entity.User;
+import com.telechat.pojo.enums.ConversationStatus;
+import com.telechat.pojo.enums.ConversationType;
+import com.telechat.pojo.result.CursorResult;
+import com.telechat.pojo.vo.ConversationVO;
+import com.telechat.properties.ChatProperties;
+import com.telechat.service.ConversationService;
+import com.telechat.util.RedisTemplateUtil;
+import com.telechat.websocket.CounterPushCoalescer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Service
+public class ConversationServiceImpl implements ConversationService {
+
+    // 会话成员角色
+    private static final String ROLE_OWNER = "owner";
+    private static final String ROLE_MEMBER = "member";
+
+    private static final int DEFAULT_LIST_LIMIT = 20;
+    private static final int MAX_LIST_LIMIT = 100;
+
+    @Autowired
+    private ConversationDao conversationDao;
+
+    @Autowired
+    private ConversationMemberDao conversationMemberDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private ChatMessageDao chatMessageDao;
+
+    @Autowired
+    private RedisTemplateUtil redisTemplateUtil;
+
+    @Autowired
+    private ChatProperties chatProperties;
+
+    @Autowired
+    private CounterPushCoalescer counterPushCoalescer;
+
+    /**
+     * 创建群聊
+     *
+     * @param ownerId        创建者ID
+     * @param createGroupDTO 群聊信息
+     * @return Long 会话ID
+     */
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public Long createGroup(Long ownerId, CreateGroupDTO createGroupDTO) {
+        // 1. 参数校验
+        String title = createGroupDTO.getTitle();
+        if (title == null || title.isBlank()) {
+            throw new ConversationException(ExceptionConstant.Judge_Query_Exception_Code, ExceptionConstant.GROUP_TITLE_EMPTY_MSG);
+        }
+        // 去重，并排除自己
+        Set<Long> memberIds = new LinkedHashSet<>();
+        if (createGroupDTO.getMemberIds() != null) {
+            memberIds.addAll(createGroupDTO.getMemberIds());
+        }
+        memberIds.remove(null);
+        memberIds.remove(ownerId);
+        if (memberIds.isEmpty()) {
+            throw new ConversationException(ExceptionConstant.Judge_Query_Exception_Code, ExceptionConstant.GROUP_MEMBER_EMPTY_MSG);
+        }
+        if (memberIds.size() + 1 > chatProperties.getMaxGroupMembers()) {
+            throw new ConversationException(ExceptionConstant.Judge_Query_Exception_Code, ExceptionConstant.GROUP_MEMBER_TOO_MANY_MSG);
+        }
+
+        // 2. 校验被邀请的用户都存在 (一条 IN 查询)
+        List<User> users = userDao.selectBatchIds(memberIds);
+        if (users == null || users.size() != memberIds.size()) {
+            throw new ConversationException(ExceptionConstant.NOT_EXIST_CODE, ExceptionConstant.GROUP_MEMBER_NOT_EXIST_MSG);
+        }
+
+        // 3. 创建群聊会话
+        LocalDateTime now = LocalDateTime.now();
+        Conversation conversation = Conversation.builder()
+                .type(ConversationType.GROUP)
+                .title(title.trim())
+                .avatar(createGroupDTO.getAvatar())
+                .ownerId(ownerId)
+                .status(ConversationStatus.NORMAL)
+                .createdTime(now)
+                .updatedTime(now)
+                .build();
+        conversationDao.insert(conversation);
+        Long conversationId = conversation.getId();
+
+        // 4. 批量写入成员 (群主 + 被邀请的用户)
+        List<ConversationMember> members = new ArrayList<>(memberIds.size() + 1);
+        members.add(ConversationMember.builder()
+                .conversationId(conversationId)
+                .userId(ownerId)
+                .role(ROLE_OWNER)
+                .joinedTime(now)
+                .build());
+        for (Long memberId : memberIds) {
+            members.add(ConversationMember.builder()
+                    .conversationId(conversationId)
+                    .userId(memberId)
+                    .role(ROLE_MEMBER)
+                    .joinedTime(now)
+                    .build());
+        }
+        conversationMemberDao.insertBatch(members);
+
+        // 5. 事务提交后清除可能存在的空值缓存 (建群前有人查过这个会话ID)
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                redisTemplateUtil.deleteConversationInfoCache(conversationId);
+                redisTemplateUtil.deleteConversationMemberCache(conversationId);
+                // 新群出现在所有成员的会话列表顶部
+                redisTemplateUtil.touchUserConversations(
+                        members.stream().map(ConversationMember::getUserId).toList(), conversationId, now);
+            }
+        });
+
+        log.info("用户 [{}] 创建群聊 [{}]，成员数: {}", ownerId, conversationId, members.size());
+        return conversationId;
+    }
+
+    /**
+     * 获取用户全部会话的未读数
+     * <p>未读计数由消息落库时增量维护，这里只需一次 HGETALL；
+     * 校准标记过期后 (默认 10 分钟) 用数据库按 lastReadMessageId 统计一次并整体替换，修正丢失或重复的增量。</p>
+     */
+    @Override
+    public Map<Long, Long> unreadCounts(Long userId) {
+        RedisTemplateUtil.UnreadSnapshot snapshot = redisTemplateUtil.getUnreadSnapshot(userId);
+        if (snapshot.checked()) {
+            return snapshot.counts();
+        }
+
+        // 校准
+        Map<Long, Long> counts = new HashMap<>();
+        for (UnreadCountDTO dto : chatMessageDao.countUnread(userId)) {
+            if (dto.getUnread() != null && dto.getUnread() > 0) {
+                counts.put(dto.getConversationId(), dto.getUnread());
+            }
+        }
+        redisTemplateUtil.rebuildUnread(userId, counts);
+        return counts;
+    }
+
+    /**
+     * 标记会话已读：推进 lastReadMessageId 并清零未读计数
+     */
+    @Override
+    public void markRead(Long userId, Long conversationId, Long lastReadMessageId) {
+        if (!redisTemplateUtil.getConversationMemberCache(conversationId).containsKey(userId)) {
+            throw new ConversationException(ExceptionConstant.NOT_ALLOWED_CODE, ExceptionConstant.NOT_CONVERSATION_MEMBER_MSG);
+        }
+        if (lastReadMessageId == null) {
+            Conversation conversation = conversationDao.selectById(conversationId);
+            lastReadMessageId = conversation == null ? null : conversation.getLastMessageId();
+        }
+        if (lastReadMessageId != null) {
+            conversationMemberDao.updateLastReadMessageId(conversationId, userId, lastReadMessageId);
+        }
+        // 清零期间新到的消息会被一并清掉，下次校准时补回
+        redisTemplateUtil.clearUnread(userId, conversationId);
+        // 同步到该用户的其他在线设备
+        counterPushCoalescer.conversationCleared(userId, conversationId);
+    }
+
+    /**
+     * 会话列表
+     * <p>每个用户一个 ZSET (score 为最后一条消息时间)，消息落库后增量更新；
+     * 翻页是一次 ZREVRANGEBYSCORE，摘要 (会话信息 + 最后一条消息) 一次 Pipeline 批量读取，
+     * 页大小与会话总数无关。ZSET 不存在时按成员表回源重建。</p>
+     * <p>游标是 (sortKey, conversationId)：回源重建的时间只精确到秒，相同 sortKey 很常见，
+     * 只按 sortKey 翻页会漏掉跨页的同分会话。</p>
+     */
+    @Override
+    public CursorResult<ConversationVO> list(Long userId, Long before, Long beforeId, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_LIST_LIMIT : Math.min(limit, MAX_LIST_LIMIT);
+        if (before != null && before <= 0) {
+            return new CursorResult<>(List.of(), null, false);
+        }
+
+        // 1. 一页会话ID (多取一个判断是否还有更多)
+        List<ZSetOperations.TypedTuple<String>> tuples = redisTemplateUtil.pageUserConversations(userId, before, beforeId, pageSize + 1);
+        List<Map.Entry<Long, Long>> page = new ArrayList<>(pageSize + 1);
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                page.add(Map.entry(Long.valueOf(tuple.getValue()), tuple.getScore().longValue()));
+            }
+        } else {
+            page = loadConversationScores(userId, before, beforeId, pageSize + 1);
+        }
+        boolean hasMore = page.size() > pageSize;
+        if (hasMore) {
+            page = page.subList(0, pageSize);
+        }
+
+        // 2. 摘要批量读取
+        Map<Long, RedisTemplateUtil.ConversationSummary> summaries = redisTemplateUtil.getConversationSummaries(
+                page.stream().map(Map.Entry::getKey).toList());
+        List<ConversationVO> records = new ArrayList<>(page.size());
+        for (Map.Entry<Long, Long> entry : page) {
+            RedisTemplateUtil.ConversationSummary summary = summaries.get(entry.getKey());
+            if (summary == null) {
+                continue;
+            }
+            ConversationVO.ConversationVOBuilder builder = ConversationVO.builder()
+                    .conversationId(entry.getKey())
+                    .type(summary.info().getType())
+                    .title(summary.info().getTitle())
+                    .avatar(summary.info().getAvatar())
+                    .sortKey(entry.getValue());
+            if (summary.lastMessage() != null) {
+                builder.lastMessageId(summary.lastMessage().getMessageId())
+                        .lastMessageContent(summary.lastMessage().getContent())
+                        .lastMessageTime(summary.lastMessage().getCreateTime());
+            }
+            records.add(builder.build());
+        }
+        Map.Entry<Long, Long> last = hasMore ? page.get(page.size() - 1) : null;
+        return new CursorResult<>(records, last == null ? null : last.getValue(), last == null ? null : last.getKey(), hasMore);
+    }
+
+    /**
+     * 回源：按成员表重建用户的会话列表，并返回请求的那一页
+     *
+     * @return (conversationId, score) 按 score 倒序
+     */
+    private List<Map.Entry<Long, Long>> loadConversationScores(Long userId, Long before, Long beforeId, int count) {
+        List<Long> conversationIds = conversationMemberDao.selectByUserId(userId).stream()
+                .map(ConversationMember::getConversationId)
+                .toList();
+        Map<Long, Long> scores = new HashMap<>();
+        for (Conversation conversation : conversationDao.selectBatchIds(conversationIds)) {
+            // 没有消息的会话按创建时间排序
+            LocalDateTime time = conversation.getLastMessageTime() != null
+                    ? conversation.getLastMessageTime()
+                    : conversation.getCreatedTime();
+            scores.put(conversation.getId(), RedisTemplateUtil.conversationScore(time));
+        }
+        redisTemplateUtil.loadUserConversations(userId, scores);
+
+        String beforeMember = beforeId == null ? null : String.valueOf(beforeId);
+        return scores.entrySet().stream()
+                .filter(e -> RedisTemplateUtil.isAfterCursor(e.getValue(), String.valueOf(e.getKey()), before, beforeMember))
+                .sorted((a, b) -> RedisTemplateUtil.compareReverse(
+                        a.getValue(), String.valueOf(a.getKey()), b.getValue(), String.valueOf(b.getKey())))
+                .limit(count)
+                .toList();
+    }
+}
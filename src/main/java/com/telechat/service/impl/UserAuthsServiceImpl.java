@@ -8,6 +8,7 @@ package com.telechat.service.impl;
 import com.telechat.constant.ExceptionConstant;
 import com.telechat.constant.MessageConstant;
 import com.telechat.exception.exceptions.EmailException;
+import com.telechat.exception.exceptions.LoginException;
 import com.telechat.exception.exceptions.RegisterException;
 import com.telechat.exception.exceptions.VerifyCodeException;
 import com.telechat.mapper.dao.UserAuthsDao;
@@ -17,7 +18,10 @@ import com.telechat.pojo.dto.RegisterDTO;
 import com.telechat.pojo.dto.ResetPasswordDTO;
 import com.telechat.pojo.entity.User;
 import com.telechat.pojo.entity.UserAuths;
+import com.telechat.pojo.vo.TokenVO;
 import com.telechat.security.JwtTokenProvider;
+import com.telechat.security.RefreshTokenStore;
+import com.telechat.security.TokenRevocationRegistry;
 import com.telechat.service.UserAuthsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -36,6 +40,10 @@ public class UserAuthsServiceImpl implements UserAuthsService {
     private RedisTemplate<String, Object> redisTemplate;
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
 
     /**
      * 校验邮箱是否已存在
@@ -114,10 +122,10 @@ public class UserAuthsServiceImpl implements UserAuthsService {
      * 邮箱验证码登录
      *
      * @param loginDTO 登录信息
-     * @return JWT Token
+     * @return 访问令牌与刷新令牌
      */
     @Override
-    public String login(LoginDTO loginDTO) {
+    public TokenVO login(LoginDTO loginDTO) {
         switch (loginDTO.getIdentifyType()) {
             case "email":
                 // 验证码校验
@@ -146,18 +154,63 @@ public class UserAuthsServiceImpl implements UserAuthsService {
                 // 更新最后登录时间
                 userTmp.setLastLoginTime(LocalDateTime.now());
                 userDao.updateById(userTmp);
-                // 生成JWT Token，包含用户角色信息
-                String token = jwtTokenProvider.generateToken(userTmp.getId(), userTmp.getNickname(), MessageConstant.USER_ROLE);
+                // 签发访问令牌与刷新令牌
+                TokenVO tokenVO = issueTokens(userTmp.getId());
 
                 // 删除已使用的验证码
                 redisTemplate.delete(redisVerifyCodeKey);
 
-                return token;
+                return tokenVO;
             default:
                 throw new RegisterException(ExceptionConstant.REGISTER_TYPE_ERROR_CODE, "登录类型错误");
         }
     }
 
+    /**
+     * 用刷新令牌换取新的访问令牌与刷新令牌
+     * <p>旧刷新令牌原子作废；已作废的刷新令牌再次使用时作废该用户的全部登录会话</p>
+     *
+     * @param refreshToken 刷新令牌
+     * @return 访问令牌与刷新令牌
+     */
+    @Override
+    public TokenVO refresh(String refreshToken) {
+        Long userId = refreshTokenStore.rotate(refreshToken);
+        // 冻结的账号不再续期
+        User user = userDao.selectById(userId);
+        if (user == null || user.getStatus() == 0) {
+            throw new LoginException(ExceptionConstant.NOT_ALLOWED_CODE, "该账号暂时被冻结，无法登录");
+        }
+        return issueTokens(userId);
+    }
+
+    /**
+     * 签发访问令牌与刷新令牌，并登记访问令牌 (修改密码、冻结账号时据此吊销)
+     */
+    private TokenVO issueTokens(Long userId) {
+        String token = jwtTokenProvider.generateAccessToken(userId);
+        tokenRevocationRegistry.register(userId, jwtTokenProvider.parseClaims(token));
+        return TokenVO.builder()
+                .token(token)
+                .tokenType("Bearer")
+                .expiresIn(jwtTokenProvider.getAccessExpiration())
+                .refreshToken(refreshTokenStore.issue(userId))
+                .refreshExpiresIn(jwtTokenProvider.getJwtExpiration())
+                .build();
+    }
+
+    /**
+     * 退出登录：吊销当前访问令牌 (各节点数秒内生效) 并作废刷新令牌
+     *
+     * @param token        当前请求的访问令牌
+     * @param refreshToken 刷新令牌，可为空
+     */
+    @Override
+    public void logout(String token, String refreshToken) {
+        tokenRevocationRegistry.revoke(jwtTokenProvider.parseClaims(token));
+        refreshTokenStore.revoke(refreshToken);
+    }
+
     /**
      * 重置密码
      *
@@ -182,6 +235,9 @@ public class UserAuthsServiceImpl implements UserAuthsService {
                 // 更新密码
                 userAuths.setCredential(resetPasswordDTO.getPassword());
                 userAuthsDao.updateById(userAuths);
+                // 旧密码下签发的所有 token 立即失效 (可能已被盗用)
+                tokenRevocationRegistry.revokeAll(userAuths.getUserId());
+                refreshTokenStore.revokeAll(userAuths.getUserId());
                 // 删除已使用的验证码
                 redisTemplate.delete(resetPasswordDTO.getIdentifier());
                 break;
@@ -0,0 +1,439 @@
+package com.telechat.util;
+
+import com.telechat.pojo.cache.ChatMessageCache;
+import com.telechat.pojo.cache.ContactApplyCache;
+import com.telechat.pojo.cache.ContactsCache;
+import com.telechat.pojo.cache.ConversationInfoCache;
+import com.telechat.pojo.cache.ConversationUserCache;
+import com.telechat.pojo.cache.UserInfoCache;
+import com.telechat.pojo.enums.ConversationStatus;
+import com.telechat.pojo.enums.ConversationType;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 缓存对象的紧凑二进制序列化
+ * <p>pojo.cache 下的缓存对象 (及其 List) 写成带版本号的二进制记录：不带类名，整数用 varint，
+ * 可空字段用一个位图标记；其他类型 (字符串、数字、空列表等) 仍交给 JSON 序列化器。</p>
+ * <p>格式：魔数 0xC7 | 版本号 | 类型标签 (最高位为 1 表示 List) | [List 长度] | 记录...
+ * 合法的 JSON 不会以 0xC7 开头，读取时据此区分，升级前写入的 JSON 数据照常可读。</p>
+ * <p>新增字段时追加到记录末尾并提升版本号，读取旧版本记录时新字段保持默认值。</p>
+ * <p>关闭二进制写入 (回滚到 JSON) 时仍按魔数识别并读取已写入的二进制记录，它们在过期或被覆盖前照常可读。</p>
+ */
+public class CompactCacheRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xC7;
+    private static final byte VERSION = 1;
+    private static final int LIST_FLAG = 0x80;
+
+    private static final int TAG_USER_INFO = 1;
+    private static final int TAG_CONTACTS = 2;
+    private static final int TAG_CONTACT_APPLY = 3;
+    private static final int TAG_CONVERSATION_INFO = 4;
+    private static final int TAG_CONVERSATION_USER = 5;
+    private static final int TAG_CHAT_MESSAGE = 6;
+
+    private static final Map<Class<?>, Integer> TAGS = new HashMap<>();
+    private static final Codec<?>[] CODECS = new Codec<?>[8];
+
+    static {
+        register(UserInfoCache.class, TAG_USER_INFO, new UserInfoCodec());
+        register(ContactsCache.class, TAG_CONTACTS, new ContactsCodec());
+        register(ContactApplyCache.class, TAG_CONTACT_APPLY, new ContactApplyCodec());
+        register(ConversationInfoCache.class, TAG_CONVERSATION_INFO, new ConversationInfoCodec());
+        register(ConversationUserCache.class, TAG_CONVERSATION_USER, new ConversationUserCodec());
+        register(ChatMessageCache.class, TAG_CHAT_MESSAGE, new ChatMessageCodec());
+    }
+
+    private static <T> void register(Class<T> type, int tag, Codec<T> codec) {
+        TAGS.put(type, tag);
+        CODECS[tag] = codec;
+    }
+
+    // 非缓存对象 / 旧数据
+    private final RedisSerializer<Object> fallback;
+
+    // 缓存对象是否写成二进制，false 时全部交给 fallback 写入 (只读二进制)
+    private final boolean writeCompact;
+
+    /**
+     * @param fallback 非 pojo.cache 类型的序列化器，同时用于读取升级前写入的数据
+     */
+    public CompactCacheRedisSerializer(RedisSerializer<Object> fallback) {
+        this(fallback, true);
+    }
+
+    /**
+     * @param fallback     非 pojo.cache 类型的序列化器，同时用于读取升级前写入的数据
+     * @param writeCompact 缓存对象是否写成二进制；false 时全部写 JSON，但仍能读取已有的二进制记录
+     */
+    public CompactCacheRedisSerializer(RedisSerializer<Object> fallback, boolean writeCompact) {
+        this.fallback = fallback;
+        this.writeCompact = writeCompact;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null || !writeCompact) {
+            return fallback.serialize(value);
+        }
+        Integer tag = TAGS.get(value.getClass());
+        if (tag != null) {
+            Writer writer = new Writer(64);
+            writer.header(tag);
+            ((Codec) CODECS[tag]).write(writer, value);
+            return writer.toByteArray();
+        }
+        if (value instanceof List<?> list && !list.isEmpty()) {
+            Integer elementTag = TAGS.get(list.get(0).getClass());
+            if (elementTag != null && sameType(list)) {
+                Writer writer = new Writer(16 + list.size() * 32);
+                writer.header(elementTag | LIST_FLAG);
+                writer.varint(list.size());
+                Codec codec = CODECS[elementTag];
+                for (Object element : list) {
+                    codec.write(writer, element);
+                }
+                return writer.toByteArray();
+            }
+        }
+        return fallback.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        try {
+            Reader reader = new Reader(bytes, 1);
+            int version = reader.u8();
+            if (version > VERSION) {
+                throw new SerializationException("不支持的缓存记录版本: " + version);
+            }
+            int tag = reader.u8();
+            Codec<?> codec = (tag & ~LIST_FLAG) < CODECS.length ? CODECS[tag & ~LIST_FLAG] : null;
+            if (codec == null) {
+                throw new SerializationException("未知的缓存记录类型: " + tag);
+            }
+            if ((tag & LIST_FLAG) == 0) {
+                return codec.read(reader, version);
+            }
+            int size = reader.varint();
+            List<Object> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(codec.read(reader, version));
+            }
+            return list;
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("缓存记录已损坏: " + Arrays.toString(Arrays.copyOf(bytes, Math.min(bytes.length, 16))), e);
+        }
+    }
+
+    private static boolean sameType(List<?> list) {
+        Class<?> type = list.get(0).getClass();
+        for (Object element : list) {
+            if (element == null || element.getClass() != type) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //------------------------------------------------各类型的编解码------------------------------------------------------------------
+
+    private interface Codec<T> {
+        void write(Writer writer, T value);
+
+        T read(Reader reader, int version);
+    }
+
+    private static final class UserInfoCodec implements Codec<UserInfoCache> {
+        @Override
+        public void write(Writer w, UserInfoCache v) {
+            w.nullMask(v.getUserId(), v.getUsername(), v.getNickname(), v.getAvatar(), v.getBio());
+            w.int64(v.getUserId());
+            w.string(v.getUsername());
+            w.string(v.getNickname());
+            w.string(v.getAvatar());
+            w.string(v.getBio());
+            w.u8(v.getGender());
+        }
+
+        @Override
+        public UserInfoCache read(Reader r, int version) {
+            int mask = r.varint();
+            UserInfoCache v = new UserInfoCache();
+            v.setUserId(r.int64(mask, 0));
+            v.setUsername(r.string(mask, 1));
+            v.setNickname(r.string(mask, 2));
+            v.setAvatar(r.string(mask, 3));
+            v.setBio(r.string(mask, 4));
+            v.setGender((byte) r.u8());
+            return v;
+        }
+    }
+
+    private static final class ContactsCodec implements Codec<ContactsCache> {
+        @Override
+        public void write(Writer w, ContactsCache v) {
+            w.nullMask(v.getContactId(), v.getFriendId(), v.getRemark());
+            w.int64(v.getContactId());
+            w.int64(v.getFriendId());
+            w.string(v.getRemark());
+        }
+
+        @Override
+        public ContactsCache read(Reader r, int version) {
+            int mask = r.varint();
+            ContactsCache v = new ContactsCache();
+            v.setContactId(r.int64(mask, 0));
+            v.setFriendId(r.int64(mask, 1));
+            v.setRemark(r.string(mask, 2));
+            return v;
+        }
+    }
+
+    private static final class ContactApplyCodec implements Codec<ContactApplyCache> {
+        @Override
+        public void write(Writer w, ContactApplyCache v) {
+            w.nullMask(v.getContactApplyId(), v.getUserId(), v.getStatus(), v.getCreatedTime());
+            w.int64(v.getContactApplyId());
+            w.int64(v.getUserId());
+            w.string(v.getStatus());
+            w.dateTime(v.getCreatedTime());
+        }
+
+        @Override
+        public ContactApplyCache read(Reader r, int version) {
+            int mask = r.varint();
+            ContactApplyCache v = new ContactApplyCache();
+            v.setContactApplyId(r.int64(mask, 0));
+            v.setUserId(r.int64(mask, 1));
+            v.setStatus(r.string(mask, 2));
+            v.setCreatedTime(r.dateTime(mask, 3));
+            return v;
+        }
+    }
+
+    private static final class ConversationInfoCodec implements Codec<ConversationInfoCache> {
+        @Override
+        public void write(Writer w, ConversationInfoCache v) {
+            w.nullMask(v.getConversationId(), v.getType(), v.getTitle(), v.getAvatar(), v.getOwnerId(), v.getStatus());
+            w.int64(v.getConversationId());
+            w.string(v.getType() == null ? null : v.getType().name());
+            w.string(v.getTitle());
+            w.string(v.getAvatar());
+            w.int64(v.getOwnerId());
+            w.string(v.getStatus() == null ? null : v.getStatus().name());
+        }
+
+        @Override
+        public ConversationInfoCache read(Reader r, int version) {
+            int mask = r.varint();
+            ConversationInfoCache v = new ConversationInfoCache();
+            v.setConversationId(r.int64(mask, 0));
+            String type = r.string(mask, 1);
+            v.setType(type == null ? null : ConversationType.valueOf(type));
+            v.setTitle(r.string(mask, 2));
+            v.setAvatar(r.string(mask, 3));
+            v.setOwnerId(r.int64(mask, 4));
+            String status = r.string(mask, 5);
+            v.setStatus(status == null ? null : ConversationStatus.valueOf(status));
+            return v;
+        }
+    }
+
+    private static final class ConversationUserCodec implements Codec<ConversationUserCache> {
+        @Override
+        public void write(Writer w, ConversationUserCache v) {
+            w.nullMask(v.getUserId(), v.getRole());
+            w.int64(v.getUserId());
+            w.string(v.getRole());
+            w.u8(v.isMuted() ? 1 : 0);
+        }
+
+        @Override
+        public ConversationUserCache read(Reader r, int version) {
+            int mask = r.varint();
+            ConversationUserCache v = new ConversationUserCache();
+            v.setUserId(r.int64(mask, 0));
+            v.setRole(r.string(mask, 1));
+            v.setMuted(r.u8() != 0);
+            return v;
+        }
+    }
+
+    private static final class ChatMessageCodec implements Codec<ChatMessageCache> {
+        @Override
+        public void write(Writer w, ChatMessageCache v) {
+            w.nullMask(v.getMessageId(), v.getSenderId(), v.getContent(), v.getMessageType(), v.getCreateTime());
+            w.int64(v.getMessageId());
+            w.int64(v.getSenderId());
+            w.string(v.getContent());
+            w.string(v.getMessageType());
+            w.dateTime(v.getCreateTime());
+        }
+
+        @Override
+        public ChatMessageCache read(Reader r, int version) {
+            int mask = r.varint();
+            ChatMessageCache v = new ChatMessageCache();
+            v.setMessageId(r.int64(mask, 0));
+            v.setSenderId(r.int64(mask, 1));
+            v.setContent(r.string(mask, 2));
+            v.setMessageType(r.string(mask, 3));
+            v.setCreateTime(r.dateTime(mask, 4));
+            return v;
+        }
+    }
+
+    //------------------------------------------------读写工具------------------------------------------------------------------
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void header(int tag) {
+            u8(MAGIC);
+            u8(VERSION);
+            u8(tag);
+        }
+
+        void u8(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void varint(int value) {
+            varlong(value & 0xFFFFFFFFL);
+        }
+
+        void varlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        /**
+         * 可空字段位图：第 i 位为 1 表示第 i 个字段为 null (null 字段不再写入)
+         */
+        void nullMask(Object... fields) {
+            int mask = 0;
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] == null) {
+                    mask |= 1 << i;
+                }
+            }
+            varint(mask);
+        }
+
+        void int64(Long value) {
+            if (value != null) {
+                // zigzag，负数 (例如空对象标记 -1) 也只占一个字节
+                varlong((value << 1) ^ (value >> 63));
+            }
+        }
+
+        void string(String value) {
+            if (value != null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                varint(bytes.length);
+                ensure(bytes.length);
+                System.arraycopy(bytes, 0, buf, pos, bytes.length);
+                pos += bytes.length;
+            }
+        }
+
+        void dateTime(LocalDateTime value) {
+            if (value != null) {
+                int64(value.toEpochSecond(ZoneOffset.UTC));
+                varint(value.getNano());
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        int u8() {
+            return buf[pos++] & 0xFF;
+        }
+
+        int varint() {
+            return (int) varlong();
+        }
+
+        long varlong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new SerializationException("varint 过长");
+        }
+
+        Long int64(int mask, int index) {
+            if ((mask & (1 << index)) != 0) {
+                return null;
+            }
+            long raw = varlong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String string(int mask, int index) {
+            if ((mask & (1 << index)) != 0) {
+                return null;
+            }
+            int length = varint();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        LocalDateTime dateTime(int mask, int index) {
+            if ((mask & (1 << index)) != 0) {
+                return null;
+            }
+            long raw = varlong();
+            long seconds = (raw >>> 1) ^ -(raw & 1);
+            return LocalDateTime.ofEpochSecond(seconds, varint(), ZoneOffset.UTC);
+        }
+    }
+}
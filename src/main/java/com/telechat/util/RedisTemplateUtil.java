@@ -3,25 +3,51 @@ package com.telechat.util;
 import com.telechat.constant.RedisConstant;
 import com.telechat.mapper.dao.ContactApplyDao;
 import com.telechat.mapper.dao.ContactDao;
+import com.telechat.mapper.dao.ConversationDao;
+import com.telechat.mapper.dao.ConversationMemberDao;
 import com.telechat.mapper.dao.UserDao;
+import com.telechat.pojo.cache.ChatMessageCache;
 import com.telechat.pojo.cache.ContactApplyCache;
 import com.telechat.pojo.cache.ContactsCache;
+import com.telechat.pojo.cache.ConversationInfoCache;
+import com.telechat.pojo.cache.ConversationUserCache;
 import com.telechat.pojo.cache.UserInfoCache;
 import com.telechat.pojo.entity.Contact;
+import com.telechat.pojo.entity.ChatMessage;
 import com.telechat.pojo.entity.ContactApply;
+import com.telechat.pojo.entity.Conversation;
+import com.telechat.pojo.entity.ConversationMember;
 import com.telechat.pojo.entity.User;
 import com.telechat.pojo.enums.ContactApplyStatus;
+import com.telechat.properties.CacheProperties;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Component
@@ -31,10 +57,36 @@ public class RedisTemplateUtil {
     private final ContactDao contactDao;
     private final ContactApplyDao contactApplyDao;
     private final UserDao userDao;
+    private final ConversationDao conversationDao;
+    private final ConversationMemberDao conversationMemberDao;
+
+    // 会话成员 / 联系人 HASH 中的空标记 (没有任何成员时写入，防止缓存穿透)
+    private static final String EMPTY_MEMBER_FIELD = "-1";
+
+    // 批量回写时过期时间的随机抖动上限 (基础时长的百分比)
+    private static final long TTL_JITTER_PERCENT = 10;
+
+    // 会话列表中的哨兵成员 (score 为 0)：保证没有任何会话的用户 ZSET 也存在，不会每次回源
+    private static final String CONVERSATION_SENTINEL = "0";
 
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
 
+    @Autowired
+    private UserInfoNearCache userInfoNearCache;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    // 缓存回源的请求合并
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    // 软过期缓存的后台刷新 (队列满时放弃本次刷新，由下一个读请求重新触发)
+    private final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(
+            2, 2, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1024),
+            Thread.ofPlatform().name("cache-refresh-", 0).daemon(true).factory());
+
     // 预加载 Lua 脚本，提升性能，避免每次执行都重新编译脚本
     private static final DefaultRedisScript<Long> UNLOCK_SCRIPT;
 
@@ -49,6 +101,156 @@ public class RedisTemplateUtil {
         UNLOCK_SCRIPT.setResultType(Long.class);
     }
 
+    // 新消息落库后追加到最近消息缓存，一批消息一次往返
+    // KEYS: 每个会话三个 (消息列表, 版本号, 最后一条消息)；ARGV: 最大条数, 过期秒数, 然后每个会话 "条数, 消息..." (ID 升序)
+    // 版本号总是自增、最后一条消息总是覆盖；列表不存在时不创建，由读请求回源加载
+    private static final DefaultRedisScript<Long> PUSH_RECENT_SCRIPT;
+
+    // 回源加载最近消息：版本号与查库前读到的一致 (期间没有新消息落库) 且列表仍不存在时才写入
+    // KEYS: 消息列表, 版本号；ARGV: 查库前的版本号, 过期秒数, 消息... (ID 降序)
+    private static final DefaultRedisScript<Long> LOAD_RECENT_SCRIPT;
+
+    static {
+        PUSH_RECENT_SCRIPT = new DefaultRedisScript<>();
+        PUSH_RECENT_SCRIPT.setScriptText(
+                "local max = tonumber(ARGV[1]) " +
+                "local ttl = tonumber(ARGV[2]) " +
+                "local idx = 3 " +
+                "for i = 1, #KEYS, 3 do " +
+                "  local n = tonumber(ARGV[idx]) " +
+                "  redis.call('incr', KEYS[i + 1]) " +
+                "  redis.call('expire', KEYS[i + 1], ttl) " +
+                "  redis.call('set', KEYS[i + 2], ARGV[idx + n], 'EX', ttl) " +
+                "  if redis.call('exists', KEYS[i]) == 1 then " +
+                "    for j = idx + 1, idx + n do redis.call('lpush', KEYS[i], ARGV[j]) end " +
+                "    redis.call('ltrim', KEYS[i], 0, max - 1) " +
+                "  end " +
+                "  idx = idx + n + 1 " +
+                "end " +
+                "return #KEYS / 3");
+        PUSH_RECENT_SCRIPT.setResultType(Long.class);
+
+        LOAD_RECENT_SCRIPT = new DefaultRedisScript<>();
+        LOAD_RECENT_SCRIPT.setScriptText(
+                "local v = redis.call('get', KEYS[2]) " +
+                "if v == false then v = '-1' end " +
+                "if v ~= ARGV[1] or redis.call('exists', KEYS[1]) == 1 then return 0 end " +
+                "redis.call('rpush', KEYS[1], unpack(ARGV, 3)) " +
+                "redis.call('expire', KEYS[1], ARGV[2]) " +
+                "return 1");
+        LOAD_RECENT_SCRIPT.setResultType(Long.class);
+    }
+
+    // 计数存在时才累加 (不存在时由下次读取按数据库重建)，结果小于 0 时归零
+    // KEYS: 计数；ARGV: 增量
+    private static final DefaultRedisScript<Long> INCR_IF_EXISTS_SCRIPT;
+
+    static {
+        INCR_IF_EXISTS_SCRIPT = new DefaultRedisScript<>();
+        INCR_IF_EXISTS_SCRIPT.setScriptText(
+                "if redis.call('exists', KEYS[1]) == 0 then return -1 end " +
+                "local v = redis.call('incrby', KEYS[1], ARGV[1]) " +
+                "if v < 0 then redis.call('incrby', KEYS[1], -v) v = 0 end " +
+                "return v");
+        INCR_IF_EXISTS_SCRIPT.setResultType(Long.class);
+    }
+
+    // 用数据库统计结果整体替换未读计数，并写入校准标记
+    // KEYS: 未读计数, 校准标记；ARGV: 计数过期秒数, 标记过期秒数, 然后 conversationId, count 成对出现
+    private static final DefaultRedisScript<Long> REBUILD_UNREAD_SCRIPT;
+
+    // 会话有新消息时更新成员的会话列表 (ZSET 不存在时不创建，由读请求回源加载)
+    // KEYS: 每个用户的会话列表；ARGV: 过期秒数, 然后每个用户 "条数, score, conversationId, ..."
+    private static final DefaultRedisScript<Long> TOUCH_CONVERSATION_SCRIPT;
+
+    // 回源加载会话列表：ZSET 不存在时写入哨兵成员 + 全部会话
+    // KEYS: 会话列表；ARGV: 过期秒数, score, conversationId, ...
+    private static final DefaultRedisScript<Long> LOAD_CONVERSATION_SCRIPT;
+
+    // HASH 存在时才写入一个 field (同时去掉空标记)，并加入排序 ZSET (联系人、联系人申请共用)
+    // KEYS: 数据 HASH, 排序 ZSET；ARGV: field, 序列化后的值, score, ZSET member
+    private static final DefaultRedisScript<Long> PUT_ORDERED_FIELD_SCRIPT;
+
+    static {
+        PUT_ORDERED_FIELD_SCRIPT = new DefaultRedisScript<>();
+        PUT_ORDERED_FIELD_SCRIPT.setScriptText(
+                "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+                "redis.call('hdel', KEYS[1], '" + EMPTY_MEMBER_FIELD + "') " +
+                "redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) " +
+                "redis.call('zadd', KEYS[2], ARGV[3], ARGV[4]) " +
+                "local ttl = redis.call('pttl', KEYS[1]) " +
+                "if ttl > 0 then redis.call('pexpire', KEYS[2], ttl) end " +
+                "return 1");
+        PUT_ORDERED_FIELD_SCRIPT.setResultType(Long.class);
+    }
+
+    // 按 (score, member) 复合游标倒序翻页：score 相同时 Redis 按 member 字典序倒序排列，
+    // 游标所在 score 上只跳过字典序不小于游标 member 的成员，同一 score 的多个成员跨页也不会漏
+    // KEYS: ZSET, 之后可选若干个只查是否存在的 key；ARGV: 游标 score (含), 游标 member, 条数
+    // 返回：可选 key 的 EXISTS 结果, 然后 member, score, member, score...
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> REV_PAGE_AFTER_SCRIPT;
+
+    static {
+        REV_PAGE_AFTER_SCRIPT = new DefaultRedisScript<>();
+        REV_PAGE_AFTER_SCRIPT.setScriptText(
+                "local max = tonumber(ARGV[1]) " +
+                "local after = ARGV[2] " +
+                "local count = tonumber(ARGV[3]) " +
+                "local out = {} " +
+                "for i = 2, #KEYS do out[#out + 1] = redis.call('exists', KEYS[i]) end " +
+                "local limit = #out + count * 2 " +
+                "local offset = 0 " +
+                "while #out < limit do " +
+                "  local r = redis.call('zrevrangebyscore', KEYS[1], ARGV[1], '-inf', 'WITHSCORES', 'LIMIT', offset, count) " +
+                "  for i = 1, #r, 2 do " +
+                "    if #out < limit and (tonumber(r[i + 1]) < max or r[i] < after) then " +
+                "      out[#out + 1] = r[i] " +
+                "      out[#out + 1] = r[i + 1] " +
+                "    end " +
+                "  end " +
+                "  if #r < count * 2 then break end " +
+                "  offset = offset + count " +
+                "end " +
+                "return out");
+        REV_PAGE_AFTER_SCRIPT.setResultType(List.class);
+    }
+
+    static {
+        TOUCH_CONVERSATION_SCRIPT = new DefaultRedisScript<>();
+        TOUCH_CONVERSATION_SCRIPT.setScriptText(
+                "local idx = 2 " +
+                "for i = 1, #KEYS do " +
+                "  local n = tonumber(ARGV[idx]) " +
+                "  if redis.call('exists', KEYS[i]) == 1 then " +
+                "    for j = idx + 1, idx + n * 2, 2 do redis.call('zadd', KEYS[i], 'GT', ARGV[j], ARGV[j + 1]) end " +
+                "  end " +
+                "  idx = idx + n * 2 + 1 " +
+                "end " +
+                "return #KEYS");
+        TOUCH_CONVERSATION_SCRIPT.setResultType(Long.class);
+
+        LOAD_CONVERSATION_SCRIPT = new DefaultRedisScript<>();
+        LOAD_CONVERSATION_SCRIPT.setScriptText(
+                "if redis.call('exists', KEYS[1]) == 1 then return 0 end " +
+                "redis.call('zadd', KEYS[1], 0, '" + CONVERSATION_SENTINEL + "') " +
+                "for i = 2, #ARGV, 2 do redis.call('zadd', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+                "redis.call('expire', KEYS[1], ARGV[1]) " +
+                "return 1");
+        LOAD_CONVERSATION_SCRIPT.setResultType(Long.class);
+    }
+
+    static {
+        REBUILD_UNREAD_SCRIPT = new DefaultRedisScript<>();
+        REBUILD_UNREAD_SCRIPT.setScriptText(
+                "redis.call('del', KEYS[1]) " +
+                "for i = 3, #ARGV, 2 do redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+                "if #ARGV > 2 then redis.call('expire', KEYS[1], ARGV[1]) end " +
+                "redis.call('set', KEYS[2], '1', 'EX', ARGV[2]) " +
+                "return 1");
+        REBUILD_UNREAD_SCRIPT.setResultType(Long.class);
+    }
+
     //------------------------------------------------分布式锁相关方法------------------------------------------------------------------
     /**
      * 尝试获取锁 (非阻塞，立即返回结果)
@@ -88,29 +290,165 @@ public class RedisTemplateUtil {
         return result != null && result == 1L;
     }
 
+    /**
+     * 批量写入缓存：一次 Pipeline 发送全部 SET key value EX ttl，整批只有一次网络往返
+     * <p>过期时间在基础时长上随机增加最多 10%，同一批回写的 key 不会在同一时刻集中过期 (缓存雪崩)</p>
+     *
+     * @param values          key -> value
+     * @param durationMinutes 基础过期时间 (分钟)
+     */
+    public void setAllWithJitter(Map<String, ?> values, long durationMinutes) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        long baseSeconds = TimeUnit.MINUTES.toSeconds(durationMinutes);
+        long maxJitter = Math.max(1, baseSeconds * TTL_JITTER_PERCENT / 100);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                values.forEach((key, value) -> operations.opsForValue().set(
+                        key, value, baseSeconds + random.nextLong(maxJitter + 1), TimeUnit.SECONDS));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 缓存未命中时的回源
+     * <p>本节点内同一 key 同时只有一个线程执行 loader (单飞)，其余线程直接共享它的结果；
+     * 开启回源互斥锁时，多个节点之间也只有拿到锁的节点查库，其余节点轮询等待它写入缓存，
+     * 等待超过锁的有效期仍未写入 (加载者宕机或超时) 则自己回源。</p>
+     *
+     * @param cacheKey 缓存 key
+     * @param reader   读缓存，未命中返回 null
+     * @param loader   查库并写入缓存
+     * @return 加载结果
+     */
+    private <T> T loadOnce(String cacheKey, Supplier<T> reader, Supplier<T> loader) {
+        return singleFlight.execute(cacheKey, () -> {
+            // 可能在排队期间刚被上一个加载者写入
+            T cached = reader.get();
+            if (cached != null) {
+                return cached;
+            }
+            if (!cacheProperties.isLoadMutexEnabled()) {
+                return loader.get();
+            }
+
+            String lockKey = RedisConstant.LOCK_CACHE_LOAD + cacheKey;
+            String requestId = UUID.randomUUID().toString();
+            long ttlMs = cacheProperties.getLoadMutexTtlMs();
+            if (tryLock(lockKey, requestId, ttlMs, TimeUnit.MILLISECONDS)) {
+                try {
+                    return loader.get();
+                } finally {
+                    unlock(lockKey, requestId);
+                }
+            }
+
+            // 其他节点正在回源
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+            while (System.nanoTime() < deadline) {
+                try {
+                    Thread.sleep(cacheProperties.getLoadMutexPollMs());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                cached = reader.get();
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            return loader.get();
+        });
+    }
+
+    /**
+     * 旧数据的后台刷新：SET NX 重新写入新鲜度标记，写入成功的请求负责刷新，
+     * 所有节点上同一个 key 每个软过期周期只刷新一次
+     *
+     * @param freshKey    新鲜度标记
+     * @param softMinutes 软过期时间 (分钟)
+     * @param refresh     查库并写入缓存
+     */
+    private void refreshInBackground(String freshKey, long softMinutes, Runnable refresh) {
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(freshKey, "1", softMinutes, TimeUnit.MINUTES))) {
+                return;
+            }
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (Exception e) {
+                    // 刷新失败时放开标记，下一个读请求再试；期间继续返回旧数据直到硬过期
+                    stringRedisTemplate.delete(freshKey);
+                    log.error("缓存后台刷新失败: {}", freshKey, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stringRedisTemplate.delete(freshKey);
+            log.warn("缓存后台刷新队列已满，跳过本次刷新: {}", freshKey);
+        } catch (Exception e) {
+            // 刷新只是优化，读请求照常返回旧数据
+            log.error("缓存后台刷新触发失败: {}", freshKey, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdownRefreshExecutor() {
+        refreshExecutor.shutdownNow();
+    }
+
     //------------------------------------------------个人信息缓存相关方法------------------------------------------------------------------
     /**
      * 获取用户信息缓存
      * 场景：查看个人信息，查看他人信息
+     * <p>读取顺序：本地缓存 (L1) -> Redis (L2) -> 数据库，逐级回填</p>
      *
      * @param userId 用户ID
      * @return UserInfoCache
      */
     public UserInfoCache getUserInfoCache(Long userId) {
+        // 0. 查本地缓存
+        UserInfoCache localCache = userInfoNearCache.get(userId);
+        if (localCache != null) {
+            return localCache.isNullPlaceholder() ? null : localCache;
+        }
+
         String cacheKey = RedisConstant.USER_INFO + userId;
 
         // 1. 查缓存
         Object cacheObj = redisTemplate.opsForValue().get(cacheKey);
 
         if (cacheObj != null) {
+            userInfoNearCache.recordRedis(1, 0);
             UserInfoCache userCache = (UserInfoCache) cacheObj;
+            userInfoNearCache.put(userId, userCache);
             // 【关键判断】如果是空对象标记，直接返回 null，不再查库
             if (userCache.isNullPlaceholder()) {
                 return null; // 拦截
             }
             return userCache;
         }
+        userInfoNearCache.recordRedis(0, 1);
 
+        // 2. 回源 (同一用户同时只有一个请求查库)
+        UserInfoCache loaded = loadOnce(cacheKey,
+                () -> (UserInfoCache) redisTemplate.opsForValue().get(cacheKey),
+                () -> loadUserInfoCache(userId, cacheKey));
+        userInfoNearCache.put(userId, loaded);
+        return loaded.isNullPlaceholder() ? null : loaded;
+    }
+
+    /**
+     * 查库并写入用户信息缓存
+     *
+     * @return UserInfoCache，用户不存在时返回空对象标记
+     */
+    private UserInfoCache loadUserInfoCache(Long userId, String cacheKey) {
         // 查库
         User user = userDao.selectById(userId);
 
@@ -127,7 +465,7 @@ public class RedisTemplateUtil {
                     nullCache,
                     RedisConstant.EMPTY_DATA,
                     TimeUnit.MINUTES);
-            return null;
+            return nullCache;
         }
 
         // 正常缓存数据
@@ -151,7 +489,7 @@ public class RedisTemplateUtil {
 
     /**
      * 批量获取用户缓存信息（核心优化方法）
-     * 策略：Redis MultiGet -> 过滤未命中 -> DB BatchQuery -> Redis MultiSet -> 合并结果
+     * 策略：本地缓存 -> Redis MultiGet -> 过滤未命中 -> DB BatchQuery -> Redis MultiSet -> 合并结果
      *
      * @param userIds 用户ID集合
      * @return Map<Long, UserInfoCache> key: userId, value: cacheObj
@@ -161,8 +499,25 @@ public class RedisTemplateUtil {
             return Collections.emptyMap();
         }
 
+        Map<Long, UserInfoCache> resultMap = new HashMap<>();
+        // 调用方可能传入重复的ID，按去重后的数量判断是否全部命中
+        Set<Long> uniqueIds = new LinkedHashSet<>(userIds);
+
+        // 0. 本地缓存命中的直接返回，只有未命中的才访问 Redis
+        Map<Long, UserInfoCache> localHits = userInfoNearCache.getAll(uniqueIds);
+        localHits.forEach((uid, cache) -> {
+            if (!cache.isNullPlaceholder()) {
+                resultMap.put(uid, cache);
+            }
+        });
+        if (localHits.size() == uniqueIds.size()) {
+            return resultMap;
+        }
+
         // 1. 准备 Redis Keys (保持顺序)
-        List<Long> distinctIds = new ArrayList<>(userIds);
+        List<Long> distinctIds = uniqueIds.stream()
+                .filter(id -> !localHits.containsKey(id))
+                .toList();
         List<String> keys = distinctIds.stream()
                 .map(id -> RedisConstant.USER_INFO + id)
                 .toList();
@@ -170,8 +525,8 @@ public class RedisTemplateUtil {
         // 2. Redis 管道批量读取 (Pipeline/MultiGet)
         List<Object> cacheResults = redisTemplate.opsForValue().multiGet(keys);
 
-        Map<Long, UserInfoCache> resultMap = new HashMap<>();
         List<Long> missingIds = new ArrayList<>();
+        Map<Long, UserInfoCache> redisHits = new HashMap<>();
 
         // 3. 整理缓存命中结果
         for (int i = 0; i < distinctIds.size(); i++) {
@@ -179,12 +534,17 @@ public class RedisTemplateUtil {
             assert cacheResults != null;
             Object result = cacheResults.get(i);
 
-            if (result instanceof UserInfoCache) {
-                resultMap.put(uid, (UserInfoCache) result);
+            if (result instanceof UserInfoCache userCache) {
+                redisHits.put(uid, userCache);
+                if (!userCache.isNullPlaceholder()) {
+                    resultMap.put(uid, userCache);
+                }
             } else {
                 missingIds.add(uid); // 记录未命中的 ID
             }
         }
+        userInfoNearCache.recordRedis(redisHits.size(), missingIds.size());
+        userInfoNearCache.putAll(redisHits);
 
         // 4. 处理未命中的数据 (回源数据库)
         if (!missingIds.isEmpty()) {
@@ -207,21 +567,14 @@ public class RedisTemplateUtil {
 
                     // 加入结果集
                     resultMap.put(user.getId(), cacheDTO);
+                    userInfoNearCache.put(user.getId(), cacheDTO);
 
                     // 准备写入 Redis
                     writeToRedisMap.put(RedisConstant.USER_INFO + user.getId(), cacheDTO);
                 }
 
-                // 4.3 Redis 批量回写
-                if (!writeToRedisMap.isEmpty()) {
-                    redisTemplate.opsForValue().multiSet(writeToRedisMap);
-
-                    // 4.4 异步或循环设置过期时间 (因为 multiSet 不支持过期)
-                    // 建议过期时间：24小时 + 随机值，防止雪崩
-                    writeToRedisMap.keySet().forEach(key ->
-                            redisTemplate.expire(key, RedisConstant.USER_INFO_DURATION, TimeUnit.HOURS)
-                    );
-                }
+                // 4.3 Redis 批量回写 (一次 Pipeline，SET 时直接带上过期时间)
+                setAllWithJitter(writeToRedisMap, RedisConstant.USER_INFO_DURATION);
             }
         }
 
@@ -237,6 +590,8 @@ public class RedisTemplateUtil {
     public void deleteUserInfoCache(Long userId) {
         String cacheKey = RedisConstant.USER_INFO + userId;
         redisTemplate.delete(cacheKey);
+        // 所有节点的本地副本一起失效
+        userInfoNearCache.invalidate(userId);
         log.info("已清除用户 {} 的个人信息缓存", userId);
     }
 
@@ -244,39 +599,75 @@ public class RedisTemplateUtil {
     /**
      * 获取联系人缓存列表
      * <p>逻辑：Redis 有就直接返回；Redis 没有则查 DB，写入 Redis 后返回</p>
+     * <p>缓存结构为 HASH (field: contactId, value: ContactsCache)，增删改联系人时只改对应的 field，不整体失效</p>
      *
      * @param userId 用户ID
-     * @return List<ContactsCache> (仅包含关系数据：contactId, friendId, remark)
+     * @return List<ContactsCache> (仅包含关系数据：contactId, friendId, remark)，按 contactId 升序
      */
-    @SuppressWarnings("unchecked")
     public List<ContactsCache> getContactCache(Long userId) {
         String cacheKey = RedisConstant.USER_CONTACTS_INFO + userId;
+        String freshKey = RedisConstant.USER_CONTACTS_INFO_FRESH + userId;
 
-        // 1. 尝试从 Redis 读取
-        Object cacheObj = redisTemplate.opsForValue().get(cacheKey);
+        // 1. 尝试从 Redis 读取 (连同新鲜度标记，一次往返)
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForHash().entries(cacheKey);
+                operations.hasKey(freshKey);
+                return null;
+            }
+        });
+        List<ContactsCache> cached = toContactList(results.get(0));
 
-        // 2. 缓存命中
-        if (cacheObj != null) {
-            // 如果缓存的是空列表（防止穿透的空值），直接返回空集合
-            if (cacheObj instanceof List && ((List<?>) cacheObj).isEmpty()) {
-                return Collections.emptyList();
+        // 2. 缓存命中 (过了软过期时间的旧数据照常返回，后台异步刷新一次)
+        if (cached != null) {
+            if (!Boolean.TRUE.equals(results.get(1))) {
+                refreshInBackground(freshKey, RedisConstant.USER_CONTACTS_INFO_DURATION,
+                        () -> loadContactCache(userId, cacheKey));
+            }
+            return cached;
+        }
+
+        // 3. 缓存未命中 -> 回源 (同一用户同时只有一个请求查库)
+        return loadOnce(cacheKey,
+                () -> toContactList(redisTemplate.opsForHash().entries(cacheKey)),
+                () -> loadContactCache(userId, cacheKey));
+    }
+
+    /**
+     * HGETALL 结果转联系人列表
+     *
+     * @return 未命中 (HASH 不存在) 返回 null；只有空标记时返回空列表
+     */
+    private List<ContactsCache> toContactList(Object entries) {
+        if (!(entries instanceof Map<?, ?> map) || map.isEmpty()) {
+            return null;
+        }
+        List<ContactsCache> contacts = new ArrayList<>(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            // 空标记 (没有任何联系人时写入，防止缓存穿透)
+            if (EMPTY_MEMBER_FIELD.equals(entry.getKey())) {
+                continue;
             }
-            // todo 如何解决
-            return (List<ContactsCache>) cacheObj;
+            contacts.add((ContactsCache) entry.getValue());
         }
+        contacts.sort(Comparator.comparing(ContactsCache::getContactId));
+        return contacts;
+    }
 
-        // 3. 缓存未命中 -> 查询数据库
+    /**
+     * 查库并写入联系人缓存 (整体替换 HASH)
+     */
+    private List<ContactsCache> loadContactCache(Long userId, String cacheKey) {
         List<Contact> dbContacts = contactDao.list(userId);
+        String freshKey = RedisConstant.USER_CONTACTS_INFO_FRESH + userId;
 
         // 4. 处理数据库为空的情况 (防缓存穿透)
         if (dbContacts == null || dbContacts.isEmpty()) {
-            // 存入空列表，过期时间设短一点
-            redisTemplate.opsForValue().set(
-                    cacheKey,
-                    Collections.emptyList(),
-                    RedisConstant.EMPTY_DATA,
-                    TimeUnit.MINUTES
-            );
+            // 只写入空标记，过期时间设短一点
+            replaceOrderedHash(cacheKey, RedisConstant.USER_CONTACTS_ORDER + userId, freshKey, Map.of(EMPTY_MEMBER_FIELD, ""),
+                    Collections.emptySet(), RedisConstant.EMPTY_DATA, RedisConstant.EMPTY_DATA);
             return Collections.emptyList();
         }
 
@@ -287,19 +678,164 @@ public class RedisTemplateUtil {
                 .friendId(c.getFriendId()) // 这里的 friendId 就是 userId 对应的那个朋友
                 .remark(c.getRemark())
                 .build()
-        ).collect(Collectors.toList());
+        ).sorted(Comparator.comparing(ContactsCache::getContactId)).collect(Collectors.toList());
 
-        // 6. 写入缓存 (正常过期时间，例如 30 分钟)
-        redisTemplate.opsForValue().set(
-                cacheKey,
-                cacheList,
+        // 6. 写入缓存 (软过期 30 分钟，硬过期再多保留一段，期间读到的旧数据由后台刷新)
+        // 排序 ZSET：member 与 score 都是 contactId (自增主键，即添加顺序)
+        Map<String, Object> fields = new HashMap<>();
+        Set<ZSetOperations.TypedTuple<Object>> order = new HashSet<>();
+        cacheList.forEach(c -> {
+            fields.put(String.valueOf(c.getContactId()), c);
+            order.add(ZSetOperations.TypedTuple.of(c.getContactId(), c.getContactId().doubleValue()));
+        });
+        replaceOrderedHash(cacheKey, RedisConstant.USER_CONTACTS_ORDER + userId, freshKey, fields, order,
                 RedisConstant.USER_CONTACTS_INFO_DURATION,
-                TimeUnit.MINUTES
-        );
+                RedisConstant.USER_CONTACTS_INFO_DURATION + RedisConstant.STALE_GRACE_DURATION);
 
         return cacheList;
     }
 
+    /**
+     * 整体替换数据 HASH、排序 ZSET 及新鲜度标记 (MULTI 包裹，读请求不会看到删了一半的 HASH)
+     * <p>联系人、联系人申请共用</p>
+     *
+     * @param fields      HASH 内容 (没有数据时只有空标记)
+     * @param order       排序 ZSET 内容
+     * @param softMinutes 软过期时间 (分钟)，过后读请求触发后台刷新
+     * @param hardMinutes 硬过期时间 (分钟)，过后读请求同步回源
+     */
+    private void replaceOrderedHash(String cacheKey, String orderKey, String freshKey, Map<String, Object> fields,
+                                    Set<ZSetOperations.TypedTuple<Object>> order, long softMinutes, long hardMinutes) {
+        redisTemplate.execute(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.multi();
+                operations.delete(List.of(cacheKey, orderKey));
+                operations.opsForHash().putAll(cacheKey, fields);
+                operations.expire(cacheKey, hardMinutes, TimeUnit.MINUTES);
+                if (!order.isEmpty()) {
+                    operations.opsForZSet().add(orderKey, order);
+                    operations.expire(orderKey, hardMinutes, TimeUnit.MINUTES);
+                }
+                operations.opsForValue().set(freshKey, "1", softMinutes, TimeUnit.MINUTES);
+                return operations.exec();
+            }
+        });
+    }
+
+    /**
+     * 增量写入一个联系人 (新增好友、修改备注)
+     * <p>HASH 不存在时不创建，否则会得到只有一个联系人且没有过期时间的残缺缓存；由下次读取回源</p>
+     *
+     * @param userId  用户ID
+     * @param contact 联系人关系数据
+     */
+    public void putContactCache(Long userId, ContactsCache contact) {
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+        redisTemplate.execute(
+                PUT_ORDERED_FIELD_SCRIPT,
+                RedisSerializer.byteArray(),
+                new GenericToStringSerializer<>(Long.class),
+                List.of(RedisConstant.USER_CONTACTS_INFO + userId, RedisConstant.USER_CONTACTS_ORDER + userId),
+                String.valueOf(contact.getContactId()).getBytes(StandardCharsets.UTF_8),
+                valueSerializer.serialize(contact),
+                String.valueOf(contact.getContactId()).getBytes(StandardCharsets.UTF_8),
+                // ZSET member 与 RedisTemplate 写入的 Long 序列化结果一致
+                valueSerializer.serialize(contact.getContactId())
+        );
+    }
+
+    /**
+     * 增量删除一个联系人 (删除好友)
+     *
+     * @param userId    用户ID
+     * @param contactId 联系人记录ID
+     */
+    public void removeContactCache(Long userId, Long contactId) {
+        // 删掉最后一个联系人后 HASH 随之消失，下次读取回源并写入空标记
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForHash().delete(RedisConstant.USER_CONTACTS_INFO + userId, String.valueOf(contactId));
+                operations.opsForZSet().remove(RedisConstant.USER_CONTACTS_ORDER + userId, contactId);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 一页联系人
+     *
+     * @param total    联系人总数
+     * @param contacts 本页联系人 (按 contactId 升序)
+     */
+    public record ContactPage(long total, List<ContactsCache> contacts) {
+    }
+
+    /**
+     * 分页获取联系人缓存 (按添加顺序)
+     * <p>第一次往返：ZCARD 总数 + ZRANGEBYSCORE 取一页 contactId + 缓存是否存在/是否新鲜；
+     * 第二次往返：HMGET 只取本页的联系人。联系人再多，单页的网络与反序列化开销也只和页大小有关。</p>
+     *
+     * @param userId 用户ID
+     * @param cursor 游标：上一页最后一个 contactId，为空时从头开始
+     * @param size   每页条数
+     * @return ContactPage
+     */
+    public ContactPage getContactPage(Long userId, Long cursor, int size) {
+        String cacheKey = RedisConstant.USER_CONTACTS_INFO + userId;
+        String orderKey = RedisConstant.USER_CONTACTS_ORDER + userId;
+        String freshKey = RedisConstant.USER_CONTACTS_INFO_FRESH + userId;
+        double min = cursor == null ? Double.NEGATIVE_INFINITY : cursor + 1;
+
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.hasKey(cacheKey);
+                operations.hasKey(freshKey);
+                operations.opsForZSet().zCard(orderKey);
+                operations.opsForZSet().rangeByScore(orderKey, min, Double.POSITIVE_INFINITY, 0, size);
+                return null;
+            }
+        });
+
+        // 缓存不存在：整体回源后在内存中切出这一页
+        if (!Boolean.TRUE.equals(results.get(0))) {
+            List<ContactsCache> all = getContactCache(userId);
+            List<ContactsCache> page = all.stream()
+                    .filter(c -> cursor == null || c.getContactId() > cursor)
+                    .limit(size)
+                    .toList();
+            return new ContactPage(all.size(), page);
+        }
+        if (!Boolean.TRUE.equals(results.get(1))) {
+            refreshInBackground(freshKey, RedisConstant.USER_CONTACTS_INFO_DURATION,
+                    () -> loadContactCache(userId, cacheKey));
+        }
+
+        long total = results.get(2) == null ? 0 : (Long) results.get(2);
+        Collection<?> members = results.get(3) == null ? Collections.emptyList() : (Collection<?>) results.get(3);
+        if (members.isEmpty()) {
+            return new ContactPage(total, Collections.emptyList());
+        }
+        List<Object> fields = members.stream()
+                .map(member -> (Object) String.valueOf(((Number) member).longValue()))
+                .toList();
+        List<Object> values = redisTemplate.opsForHash().multiGet(cacheKey, fields);
+        List<ContactsCache> contacts = new ArrayList<>(values.size());
+        for (Object value : values) {
+            // ZSET 与 HASH 之间的短暂不一致 (并发增删) 直接跳过
+            if (value instanceof ContactsCache contact) {
+                contacts.add(contact);
+            }
+        }
+        return new ContactPage(total, contacts);
+    }
+
     /**
      * 删除单人联系人缓存
      * 场景：修改备注、删除好友
@@ -307,8 +843,10 @@ public class RedisTemplateUtil {
      * @param userId 用户ID
      */
     public void deleteContactCache(Long userId) {
-        String cacheKey = RedisConstant.USER_CONTACTS_INFO + userId;
-        redisTemplate.delete(cacheKey);
+        redisTemplate.delete(List.of(
+                RedisConstant.USER_CONTACTS_INFO + userId,
+                RedisConstant.USER_CONTACTS_ORDER + userId,
+                RedisConstant.USER_CONTACTS_INFO_FRESH + userId));
         log.info("已清除用户 {} 的联系人列表缓存", userId);
     }
 
@@ -322,7 +860,10 @@ public class RedisTemplateUtil {
         if (userIds == null || userIds.isEmpty()) return;
 
         List<String> keys = userIds.stream()
-                .map(id -> RedisConstant.USER_CONTACTS_INFO + id)
+                .flatMap(id -> Stream.of(
+                        RedisConstant.USER_CONTACTS_INFO + id,
+                        RedisConstant.USER_CONTACTS_ORDER + id,
+                        RedisConstant.USER_CONTACTS_INFO_FRESH + id))
                 .collect(Collectors.toList());
 
         redisTemplate.delete(keys);
@@ -331,71 +872,913 @@ public class RedisTemplateUtil {
 
     //------------------------------------------------联系人申请缓存相关方法------------------------------------------------------------------
     /**
-     * 获取联系人申请缓存
-     * 场景：点开联系人申请
+     * 获取联系人申请缓存 (全部未处理申请，按申请时间倒序)
+     * <p>缓存结构为 HASH (field: applyId, value: ContactApplyCache) + 排序 ZSET (member: applyId, score: 申请时间戳毫秒)，
+     * 发起、处理申请时只改对应的 field，不整体失效</p>
+     * 场景：分页读取时缓存不存在，整体回源
      *
      * @param userId 用户ID（有多少人加这个用户）
      */
     public List<ContactApplyCache> getContactApplyCache(Long userId) {
         String cacheKey = RedisConstant.USER_CONTACTS_APPLY + userId;
+        String freshKey = RedisConstant.USER_CONTACTS_APPLY_FRESH + userId;
 
-        // 1. 读取缓存，获取联系人申请列表
-        Object cacheObj = redisTemplate.opsForValue().get(cacheKey);
+        // 1. 读取缓存，获取联系人申请列表 (连同新鲜度标记，一次往返)
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForHash().entries(cacheKey);
+                operations.hasKey(freshKey);
+                return null;
+            }
+        });
+        List<ContactApplyCache> cached = toContactApplyList(results.get(0));
 
-        // 1.1 命中缓存，直接获取联系人申请列表
-        if (cacheObj != null) {
-            // 如果缓存的是空列表（防止穿透的空值），直接返回空集合
-            if(cacheObj instanceof List && ((List<?>) cacheObj).isEmpty()) {
-                return Collections.emptyList();
+        // 1.1 命中缓存，直接获取联系人申请列表 (过了软过期时间的旧数据照常返回，后台异步刷新一次)
+        if (cached != null) {
+            if (!Boolean.TRUE.equals(results.get(1))) {
+                refreshInBackground(freshKey, RedisConstant.USER_CONTACT_APPLIES_DURATION,
+                        () -> loadContactApplyCache(userId, cacheKey));
+            }
+            return cached;
+        }
+
+        // 1.2 未命中缓存，回源数据库并写入缓存 (同一用户同时只有一个请求查库)
+        return loadOnce(cacheKey,
+                () -> toContactApplyList(redisTemplate.opsForHash().entries(cacheKey)),
+                () -> loadContactApplyCache(userId, cacheKey));
+    }
+
+    /**
+     * HGETALL 结果转联系人申请列表
+     *
+     * @return 未命中 (HASH 不存在) 返回 null；只有空标记时返回空列表
+     */
+    private List<ContactApplyCache> toContactApplyList(Object entries) {
+        if (!(entries instanceof Map<?, ?> map) || map.isEmpty()) {
+            return null;
+        }
+        List<ContactApplyCache> applies = new ArrayList<>(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            // 空标记 (没有任何申请时写入，防止缓存穿透)
+            if (EMPTY_MEMBER_FIELD.equals(entry.getKey())) {
+                continue;
             }
-            // 返回数据
-            // todo 如何解决
-            return (List<ContactApplyCache>) cacheObj;
+            applies.add((ContactApplyCache) entry.getValue());
         }
+        // 与 ZSET 的排列一致：申请时间倒序，同一时间按申请ID字符串倒序
+        applies.sort((a, b) -> compareReverse(contactApplyScore(a), String.valueOf(a.getContactApplyId()),
+                contactApplyScore(b), String.valueOf(b.getContactApplyId())));
+        return applies;
+    }
 
-        // 1.2 未命中缓存，回源数据库并写入缓存
+    /**
+     * 查库并写入联系人申请缓存 (整体替换 HASH 与排序 ZSET)
+     */
+    private List<ContactApplyCache> loadContactApplyCache(Long userId, String cacheKey) {
         List<ContactApply> dbContactApplies = contactApplyDao.selectApplyList(userId, ContactApplyStatus.PENDING);
+        String orderKey = RedisConstant.USER_CONTACTS_APPLY_ORDER + userId;
+        String freshKey = RedisConstant.USER_CONTACTS_APPLY_FRESH + userId;
 
         // 1.2.1 处理数据库为空的情况（防止缓存穿透）
         if(dbContactApplies == null || dbContactApplies.isEmpty()) {
-            // 存入空列表
-            redisTemplate.opsForValue().set(
-                    cacheKey,
-                    Collections.emptyList(),
-                    RedisConstant.EMPTY_DATA,
-                    TimeUnit.MINUTES
-            );
+            // 只写入空标记
+            replaceOrderedHash(cacheKey, orderKey, freshKey, Map.of(EMPTY_MEMBER_FIELD, ""),
+                    Collections.emptySet(), RedisConstant.EMPTY_DATA, RedisConstant.EMPTY_DATA);
             return Collections.emptyList();
         }
 
-        // 2. 实体转换
-        List<ContactApplyCache> cacheList = dbContactApplies.stream().map(c -> ContactApplyCache.builder()
-                .contactApplyId(c.getId())
-                .userId(c.getUserId()) // 是userId 申请加 friendId好友
-                .status(ContactApplyStatus.PENDING.getDesc())
-                .createdTime(c.getCreatedTime())
-                .build()
-        ).collect(Collectors.toList());
+        // 2. 实体转换 (查询已按申请时间倒序)
+        List<ContactApplyCache> cacheList = dbContactApplies.stream()
+                .map(this::toContactApplyCache)
+                .collect(Collectors.toList());
 
-        // 3. 写入缓存
-        redisTemplate.opsForValue().set(
-                cacheKey,
-                cacheList,
+        // 3. 写入缓存 (排序 ZSET 的 score 为申请时间)
+        Map<String, Object> fields = new HashMap<>();
+        Set<ZSetOperations.TypedTuple<Object>> order = new HashSet<>();
+        cacheList.forEach(c -> {
+            fields.put(String.valueOf(c.getContactApplyId()), c);
+            order.add(ZSetOperations.TypedTuple.of(c.getContactApplyId(), (double) contactApplyScore(c)));
+        });
+        replaceOrderedHash(cacheKey, orderKey, freshKey, fields, order,
                 RedisConstant.USER_CONTACT_APPLIES_DURATION,
-                TimeUnit.MINUTES
-        );
+                RedisConstant.USER_CONTACT_APPLIES_DURATION + RedisConstant.STALE_GRACE_DURATION);
         return cacheList;
     }
 
+    /**
+     * 未处理的联系人申请 Entity -> Cache
+     */
+    public ContactApplyCache toContactApplyCache(ContactApply apply) {
+        return ContactApplyCache.builder()
+                .contactApplyId(apply.getId())
+                .userId(apply.getUserId()) // 是userId 申请加 friendId好友
+                .status(ContactApplyStatus.PENDING.getDesc())
+                .createdTime(apply.getCreatedTime())
+                .build();
+    }
+
+    /**
+     * 联系人申请排序 ZSET 的 score：申请时间戳毫秒 (与会话列表一致)
+     */
+    public static long contactApplyScore(ContactApplyCache apply) {
+        return conversationScore(apply.getCreatedTime());
+    }
+
+    /**
+     * 分页获取联系人申请缓存 (按申请时间倒序)
+     * <p>第一次往返：ZREVRANGEBYSCORE 取一页 applyId + 缓存是否存在/是否新鲜；第二次往返：HMGET 只取本页的申请</p>
+     *
+     * <p>游标是 (申请时间戳毫秒, 申请ID)：同一时间的多条申请跨页时按申请ID区分，不会漏掉</p>
+     *
+     * @param userId   用户ID
+     * @param before   游标 score (申请时间戳毫秒)，为空时从最新开始
+     * @param beforeId 游标申请ID：score 等于 before 时只返回ID字符串小于它的申请；为空时只返回 score 小于 before 的申请
+     * @param count    条数
+     * @return List<ContactApplyCache> 按申请时间倒序
+     */
+    public List<ContactApplyCache> getContactApplyPage(Long userId, Long before, Long beforeId, int count) {
+        String cacheKey = RedisConstant.USER_CONTACTS_APPLY + userId;
+        String orderKey = RedisConstant.USER_CONTACTS_APPLY_ORDER + userId;
+        String freshKey = RedisConstant.USER_CONTACTS_APPLY_FRESH + userId;
+
+        boolean cached;
+        boolean fresh;
+        Collection<?> members;
+        if (before != null && beforeId != null) {
+            // 复合游标：一次脚本同时返回缓存是否存在/是否新鲜与这一页
+            List<Object> raw = reversePageAfterRaw(List.of(orderKey, cacheKey, freshKey), before, String.valueOf(beforeId), count);
+            cached = raw.size() > 0 && Long.valueOf(1).equals(raw.get(0));
+            fresh = raw.size() > 1 && Long.valueOf(1).equals(raw.get(1));
+            members = toTuples(raw, 2).stream().map(ZSetOperations.TypedTuple::getValue).toList();
+        } else {
+            double max = before == null ? Double.POSITIVE_INFINITY : before - 1;
+            List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    operations.hasKey(cacheKey);
+                    operations.hasKey(freshKey);
+                    operations.opsForZSet().reverseRangeByScore(orderKey, Double.NEGATIVE_INFINITY, max, 0, count);
+                    return null;
+                }
+            });
+            cached = Boolean.TRUE.equals(results.get(0));
+            fresh = Boolean.TRUE.equals(results.get(1));
+            members = results.get(2) == null ? Collections.emptyList() : (Collection<?>) results.get(2);
+        }
+
+        // 缓存不存在：整体回源后在内存中切出这一页
+        if (!cached) {
+            String beforeMember = beforeId == null ? null : String.valueOf(beforeId);
+            return getContactApplyCache(userId).stream()
+                    .filter(apply -> isAfterCursor(contactApplyScore(apply), String.valueOf(apply.getContactApplyId()),
+                            before, beforeMember))
+                    .limit(count)
+                    .toList();
+        }
+        if (!fresh) {
+            refreshInBackground(freshKey, RedisConstant.USER_CONTACT_APPLIES_DURATION,
+                    () -> loadContactApplyCache(userId, cacheKey));
+        }
+
+        if (members.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // 管道中的 member 按值序列化器反序列化为数字，脚本返回的是字符串
+        List<Object> fields = members.stream()
+                .map(member -> (Object) (member instanceof Number number
+                        ? String.valueOf(number.longValue())
+                        : String.valueOf(member)))
+                .toList();
+        List<Object> values = redisTemplate.opsForHash().multiGet(cacheKey, fields);
+        List<ContactApplyCache> applies = new ArrayList<>(values.size());
+        for (Object value : values) {
+            // ZSET 与 HASH 之间的短暂不一致 (并发发起/处理) 直接跳过
+            if (value instanceof ContactApplyCache apply) {
+                applies.add(apply);
+            }
+        }
+        return applies;
+    }
+
+    /**
+     * 增量写入一条未处理申请 (发起申请、重新发起被拒绝的申请)
+     * <p>HASH 不存在时不创建，由下次读取回源</p>
+     *
+     * @param userId 接收申请的用户ID
+     * @param apply  申请数据
+     */
+    public void putContactApplyCache(Long userId, ContactApplyCache apply) {
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+        redisTemplate.execute(
+                PUT_ORDERED_FIELD_SCRIPT,
+                RedisSerializer.byteArray(),
+                new GenericToStringSerializer<>(Long.class),
+                List.of(RedisConstant.USER_CONTACTS_APPLY + userId, RedisConstant.USER_CONTACTS_APPLY_ORDER + userId),
+                String.valueOf(apply.getContactApplyId()).getBytes(StandardCharsets.UTF_8),
+                valueSerializer.serialize(apply),
+                String.valueOf(contactApplyScore(apply)).getBytes(StandardCharsets.UTF_8),
+                valueSerializer.serialize(apply.getContactApplyId())
+        );
+    }
+
+    /**
+     * 增量删除一条申请 (同意、拒绝)
+     *
+     * @param userId  接收申请的用户ID
+     * @param applyId 申请ID
+     */
+    public void removeContactApplyCache(Long userId, Long applyId) {
+        // 删掉最后一条申请后 HASH 随之消失，下次读取回源并写入空标记
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForHash().delete(RedisConstant.USER_CONTACTS_APPLY + userId, String.valueOf(applyId));
+                operations.opsForZSet().remove(RedisConstant.USER_CONTACTS_APPLY_ORDER + userId, applyId);
+                return null;
+            }
+        });
+    }
+
     /**
      * 删除单人联系人申请缓存
-     * 场景：处理申请，某人向该用户发起申请
      *
      * @param userId 用户ID
      */
     public void deleteContactApplyCache(Long userId) {
-        String cacheKey = RedisConstant.USER_CONTACTS_APPLY + userId;
-        redisTemplate.delete(cacheKey);
+        redisTemplate.delete(List.of(
+                RedisConstant.USER_CONTACTS_APPLY + userId,
+                RedisConstant.USER_CONTACTS_APPLY_ORDER + userId,
+                RedisConstant.USER_CONTACTS_APPLY_FRESH + userId));
         log.info("已清除用户 {} 的联系人申请列表缓存", userId);
     }
+
+    /**
+     * 读取未读联系人申请数
+     * <p>计数不存在时查库重建 (同一用户同时只有一个请求查库)，之后由发起/处理/已读增量维护，轮询不再访问数据库</p>
+     *
+     * @param userId 用户ID
+     * @return 未读数
+     */
+    public Long getContactApplyUnreadCount(Long userId) {
+        String cacheKey = RedisConstant.USER_CONTACT_APPLY_UNREAD + userId;
+        String cached = stringRedisTemplate.opsForValue().get(cacheKey);
+        if (cached != null) {
+            return Long.valueOf(cached);
+        }
+        return loadOnce(cacheKey,
+                () -> {
+                    String value = stringRedisTemplate.opsForValue().get(cacheKey);
+                    return value == null ? null : Long.valueOf(value);
+                },
+                () -> {
+                    Long count = contactApplyDao.getUnreadContactApplyCount(userId);
+                    // 查库期间并发的增量会被覆盖，最多偏差到计数过期
+                    stringRedisTemplate.opsForValue().set(cacheKey, String.valueOf(count),
+                            RedisConstant.USER_CONTACT_APPLY_UNREAD_DURATION, TimeUnit.MINUTES);
+                    return count;
+                });
+    }
+
+    /**
+     * 增减未读联系人申请数 (计数不存在时不处理)
+     * 场景：收到新申请 +1，处理一条未读申请 -1
+     *
+     * @param userId 用户ID
+     * @param delta  增量
+     */
+    public void incrementContactApplyUnread(Long userId, long delta) {
+        stringRedisTemplate.execute(
+                INCR_IF_EXISTS_SCRIPT,
+                Collections.singletonList(RedisConstant.USER_CONTACT_APPLY_UNREAD + userId),
+                String.valueOf(delta)
+        );
+    }
+
+    /**
+     * 未读联系人申请数归零
+     * 场景：全部标记已读
+     *
+     * @param userId 用户ID
+     */
+    public void resetContactApplyUnread(Long userId) {
+        stringRedisTemplate.opsForValue().set(RedisConstant.USER_CONTACT_APPLY_UNREAD + userId, "0",
+                RedisConstant.USER_CONTACT_APPLY_UNREAD_DURATION, TimeUnit.MINUTES);
+    }
+
+    //------------------------------------------------会话缓存相关方法------------------------------------------------------------------
+    /**
+     * 获取会话基本信息缓存
+     * 场景：发送消息时校验会话状态
+     *
+     * @param conversationId 会话ID
+     * @return ConversationInfoCache，会话不存在返回 null
+     */
+    public ConversationInfoCache getConversationInfoCache(Long conversationId) {
+        String cacheKey = RedisConstant.CONVERSATION_INFO + conversationId;
+
+        // 1. 查缓存
+        Object cacheObj = redisTemplate.opsForValue().get(cacheKey);
+        if (cacheObj instanceof ConversationInfoCache infoCache) {
+            return infoCache.isNullPlaceholder() ? null : infoCache;
+        }
+
+        // 2. 查库
+        Conversation conversation = conversationDao.selectById(conversationId);
+        if (conversation == null) {
+            redisTemplate.opsForValue().set(
+                    cacheKey,
+                    ConversationInfoCache.builder().conversationId(-1L).build(),
+                    RedisConstant.EMPTY_DATA,
+                    TimeUnit.MINUTES);
+            return null;
+        }
+
+        // 3. 写入缓存 (最后一条消息变化频繁，不放在这里)
+        ConversationInfoCache infoCache = ConversationInfoCache.builder()
+                .conversationId(conversation.getId())
+                .type(conversation.getType())
+                .title(conversation.getTitle())
+                .avatar(conversation.getAvatar())
+                .ownerId(conversation.getOwnerId())
+                .status(conversation.getStatus())
+                .build();
+        redisTemplate.opsForValue().set(
+                cacheKey,
+                infoCache,
+                RedisConstant.CONVERSATION_INFO_DURATION,
+                TimeUnit.MINUTES
+        );
+        return infoCache;
+    }
+
+    /**
+     * 删除会话基本信息缓存
+     * 场景：修改群名称/头像、解散会话
+     *
+     * @param conversationId 会话ID
+     */
+    public void deleteConversationInfoCache(Long conversationId) {
+        redisTemplate.delete(RedisConstant.CONVERSATION_INFO + conversationId);
+    }
+
+    /**
+     * 获取会话成员缓存 (HASH: userId -> ConversationUserCache)
+     * <p>只缓存未退出 (isDeleted = false) 的成员，发送消息时不再逐条查库</p>
+     *
+     * @param conversationId 会话ID
+     * @return Map<Long, ConversationUserCache> key: userId
+     */
+    public Map<Long, ConversationUserCache> getConversationMemberCache(Long conversationId) {
+        String cacheKey = RedisConstant.CONVERSATION_MEMBERS + conversationId;
+
+        // 1. 查缓存 (HGETALL)
+        Map<Long, ConversationUserCache> cached = toMemberMap(redisTemplate.opsForHash().entries(cacheKey));
+        if (cached != null) {
+            return cached;
+        }
+
+        // 2. 未命中，回源数据库并写入缓存 (同一会话同时只有一个请求查库，大群缓存过期时不会一起打到 MySQL)
+        return loadOnce(cacheKey,
+                () -> toMemberMap(redisTemplate.opsForHash().entries(cacheKey)),
+                () -> loadConversationMemberCache(conversationId, cacheKey));
+    }
+
+    /**
+     * HGETALL 结果转会话成员 Map
+     *
+     * @return 未命中 (HASH 不存在) 返回 null；只有空标记时返回空 Map
+     */
+    private Map<Long, ConversationUserCache> toMemberMap(Map<Object, Object> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return null;
+        }
+        Map<Long, ConversationUserCache> members = new HashMap<>(entries.size() * 2);
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            if (!EMPTY_MEMBER_FIELD.equals(entry.getKey()) && entry.getValue() instanceof ConversationUserCache member) {
+                members.put(member.getUserId(), member);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * 查库并写入会话成员缓存 (过滤已退出的成员)
+     */
+    private Map<Long, ConversationUserCache> loadConversationMemberCache(Long conversationId, String cacheKey) {
+        List<ConversationMember> dbMembers = conversationMemberDao.selectByConversationId(conversationId);
+        Map<Long, ConversationUserCache> members = new HashMap<>();
+        Map<String, Object> writeToRedisMap = new HashMap<>();
+        for (ConversationMember m : dbMembers) {
+            if (m.isDeleted()) {
+                continue;
+            }
+            ConversationUserCache member = ConversationUserCache.builder()
+                    .userId(m.getUserId())
+                    .role(m.getRole())
+                    .muted(m.isMuted())
+                    .build();
+            members.put(m.getUserId(), member);
+            writeToRedisMap.put(String.valueOf(m.getUserId()), member);
+        }
+
+        // 没有成员时写入空标记，过期时间设短一点
+        boolean empty = writeToRedisMap.isEmpty();
+        if (empty) {
+            writeToRedisMap.put(EMPTY_MEMBER_FIELD, ConversationUserCache.builder().userId(-1L).build());
+        }
+        long duration = empty ? RedisConstant.EMPTY_DATA : RedisConstant.CONVERSATION_MEMBERS_DURATION;
+
+        // HASH 与过期时间在同一个事务中写入，不会留下没有过期时间的成员缓存
+        redisTemplate.execute(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.multi();
+                operations.delete(cacheKey);
+                operations.opsForHash().putAll(cacheKey, writeToRedisMap);
+                operations.expire(cacheKey, duration, TimeUnit.MINUTES);
+                return operations.exec();
+            }
+        });
+        return members;
+    }
+
+    /**
+     * 删除会话成员缓存
+     * 场景：建群、加人、退群、修改免打扰
+     *
+     * @param conversationId 会话ID
+     */
+    public void deleteConversationMemberCache(Long conversationId) {
+        redisTemplate.delete(RedisConstant.CONVERSATION_MEMBERS + conversationId);
+    }
+
+    //------------------------------------------------会话消息缓存相关方法------------------------------------------------------------------
+    /**
+     * 打开会话时一次往返读取的数据
+     *
+     * @param membersCached 会话成员缓存是否存在 (不存在时 member 无意义，需要回源判断)
+     * @param member        用户是否为会话成员
+     * @param recent        最近消息 (ID 降序)，缓存不存在时为空列表
+     * @param version       最近消息缓存的版本号，不存在时为 -1
+     */
+    public record HistorySnapshot(boolean membersCached, boolean member, List<ChatMessageCache> recent, long version) {
+    }
+
+    /**
+     * 一次 Pipeline 读取成员身份、最近消息及其版本号
+     * 场景：打开会话 (常见情况下只需要这一次 Redis 往返)
+     *
+     * @param conversationId 会话ID
+     * @param userId         用户ID
+     * @return HistorySnapshot
+     */
+    public HistorySnapshot getHistorySnapshot(Long conversationId, Long userId) {
+        String membersKey = RedisConstant.CONVERSATION_MEMBERS + conversationId;
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.hasKey(membersKey);
+                operations.opsForHash().hasKey(membersKey, String.valueOf(userId));
+                operations.opsForList().range(RedisConstant.CONVERSATION_RECENT_MESSAGES + conversationId, 0, -1);
+                operations.opsForValue().get(RedisConstant.CONVERSATION_RECENT_VERSION + conversationId);
+                return null;
+            }
+        });
+
+        List<ChatMessageCache> recent = new ArrayList<>();
+        if (results.get(2) instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof ChatMessageCache message) {
+                    recent.add(message);
+                }
+            }
+        }
+        long version = results.get(3) instanceof Number number ? number.longValue() : -1L;
+        return new HistorySnapshot(
+                Boolean.TRUE.equals(results.get(0)),
+                Boolean.TRUE.equals(results.get(1)),
+                recent,
+                version
+        );
+    }
+
+    /**
+     * 回源后写入最近消息缓存
+     *
+     * @param conversationId 会话ID
+     * @param version        查库前读到的版本号
+     * @param newestFirst    最近消息 (ID 降序)
+     */
+    public void loadRecentMessages(Long conversationId, long version, List<ChatMessageCache> newestFirst) {
+        if (newestFirst.isEmpty()) {
+            return;
+        }
+        Object[] args = new Object[newestFirst.size() + 2];
+        args[0] = version;
+        args[1] = TimeUnit.MINUTES.toSeconds(RedisConstant.CONVERSATION_RECENT_MESSAGES_DURATION);
+        for (int i = 0; i < newestFirst.size(); i++) {
+            args[i + 2] = newestFirst.get(i);
+        }
+        redisTemplate.execute(
+                LOAD_RECENT_SCRIPT,
+                List.of(RedisConstant.CONVERSATION_RECENT_MESSAGES + conversationId,
+                        RedisConstant.CONVERSATION_RECENT_VERSION + conversationId),
+                args
+        );
+    }
+
+    /**
+     * 新消息落库后追加到各会话的最近消息缓存 (整批一次往返)
+     * 场景：ChatMessageBatchWriter 提交事务后
+     *
+     * @param messages 已落库的消息
+     * @param maxSize  每个会话最多缓存的条数
+     */
+    public void pushRecentMessages(List<ChatMessage> messages, int maxSize) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        // 按会话分组，组内按 ID 升序 (LPUSH 之后最新的在表头)
+        Map<Long, List<ChatMessage>> byConversation = messages.stream()
+                .sorted(Comparator.comparing(ChatMessage::getId))
+                .collect(Collectors.groupingBy(ChatMessage::getConversationId, LinkedHashMap::new, Collectors.toList()));
+
+        List<String> keys = new ArrayList<>(byConversation.size() * 3);
+        List<Object> args = new ArrayList<>(messages.size() + byConversation.size() + 2);
+        args.add(maxSize);
+        args.add(TimeUnit.MINUTES.toSeconds(RedisConstant.CONVERSATION_RECENT_MESSAGES_DURATION));
+        byConversation.forEach((conversationId, list) -> {
+            keys.add(RedisConstant.CONVERSATION_RECENT_MESSAGES + conversationId);
+            keys.add(RedisConstant.CONVERSATION_RECENT_VERSION + conversationId);
+            keys.add(RedisConstant.CONVERSATION_LAST_MESSAGE + conversationId);
+            args.add(list.size());
+            for (ChatMessage m : list) {
+                args.add(toChatMessageCache(m));
+            }
+        });
+        redisTemplate.execute(PUSH_RECENT_SCRIPT, keys, args.toArray());
+    }
+
+    /**
+     * 实体转换 Entity -> Cache
+     */
+    public ChatMessageCache toChatMessageCache(ChatMessage message) {
+        return ChatMessageCache.builder()
+                .messageId(message.getId())
+                .senderId(message.getSenderId())
+                .content(message.getContent())
+                .messageType(message.getMessageType())
+                .createTime(message.getCreateTime())
+                .build();
+    }
+
+    //------------------------------------------------未读计数相关方法------------------------------------------------------------------
+    /**
+     * 未读计数及其是否已校准
+     *
+     * @param counts  conversationId -> 未读数 (没有未读的会话不包含在内)
+     * @param checked 校准标记是否存在 (不存在时应该用数据库统计结果重建)
+     */
+    public record UnreadSnapshot(Map<Long, Long> counts, boolean checked) {
+    }
+
+    /**
+     * 批量累加未读计数 (整批一次 Pipeline)
+     * 场景：消息落库后，给会话内除发送者以外的成员 +1
+     *
+     * @param deltas userId -> (conversationId -> 增量)
+     */
+    public void incrementUnread(Map<Long, Map<Long, Long>> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        long ttl = TimeUnit.MINUTES.toSeconds(RedisConstant.USER_UNREAD_DURATION);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            deltas.forEach((userId, byConversation) -> {
+                byte[] key = (RedisConstant.USER_UNREAD + userId).getBytes(StandardCharsets.UTF_8);
+                byConversation.forEach((conversationId, delta) -> connection.hashCommands()
+                        .hIncrBy(key, String.valueOf(conversationId).getBytes(StandardCharsets.UTF_8), delta));
+                connection.keyCommands().expire(key, ttl);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * 读取用户全部会话的未读计数 (HGETALL + 校准标记，一次往返)
+     *
+     * @param userId 用户ID
+     * @return UnreadSnapshot
+     */
+    public UnreadSnapshot getUnreadSnapshot(Long userId) {
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForHash().entries(RedisConstant.USER_UNREAD + userId);
+                operations.hasKey(RedisConstant.USER_UNREAD_CHECKED + userId);
+                return null;
+            }
+        });
+
+        Map<Long, Long> counts = new HashMap<>();
+        if (results.get(0) instanceof Map<?, ?> entries) {
+            entries.forEach((field, value) -> {
+                long count = Long.parseLong(value.toString());
+                if (count > 0) {
+                    counts.put(Long.valueOf(field.toString()), count);
+                }
+            });
+        }
+        return new UnreadSnapshot(counts, Boolean.TRUE.equals(results.get(1)));
+    }
+
+    /**
+     * 用数据库统计结果重建未读计数
+     *
+     * @param userId 用户ID
+     * @param counts conversationId -> 未读数
+     */
+    public void rebuildUnread(Long userId, Map<Long, Long> counts) {
+        List<String> args = new ArrayList<>(counts.size() * 2 + 2);
+        args.add(String.valueOf(TimeUnit.MINUTES.toSeconds(RedisConstant.USER_UNREAD_DURATION)));
+        args.add(String.valueOf(TimeUnit.MINUTES.toSeconds(RedisConstant.USER_UNREAD_CHECKED_DURATION)));
+        counts.forEach((conversationId, count) -> {
+            args.add(String.valueOf(conversationId));
+            args.add(String.valueOf(count));
+        });
+        stringRedisTemplate.execute(
+                REBUILD_UNREAD_SCRIPT,
+                List.of(RedisConstant.USER_UNREAD + userId, RedisConstant.USER_UNREAD_CHECKED + userId),
+                args.toArray()
+        );
+    }
+
+    /**
+     * 清零某个会话的未读计数
+     * 场景：用户打开/已读会话
+     *
+     * @param userId         用户ID
+     * @param conversationId 会话ID
+     */
+    public void clearUnread(Long userId, Long conversationId) {
+        stringRedisTemplate.opsForHash().delete(RedisConstant.USER_UNREAD + userId, String.valueOf(conversationId));
+    }
+
+    //------------------------------------------------会话列表缓存相关方法------------------------------------------------------------------
+    /**
+     * 会话摘要 (基本信息 + 最后一条消息)
+     *
+     * @param info        会话基本信息
+     * @param lastMessage 最后一条消息，没有消息时为 null
+     */
+    public record ConversationSummary(ConversationInfoCache info, ChatMessageCache lastMessage) {
+    }
+
+    /**
+     * 按 score (最后一条消息时间) 倒序读取用户的会话列表，score 相同时按会话ID字符串倒序 (与 Redis 的排列一致)
+     *
+     * @param userId   用户ID
+     * @param before   游标 score：为空时从最新开始
+     * @param beforeId 游标会话ID：score 等于 before 时只返回ID字符串小于它的会话；为空时只返回 score 小于 before 的会话
+     * @param count    条数
+     * @return 按 score 倒序的 (conversationId, score)；ZSET 不存在时返回 null
+     */
+    public List<ZSetOperations.TypedTuple<String>> pageUserConversations(Long userId, Long before, Long beforeId, int count) {
+        String key = RedisConstant.USER_CONVERSATION + userId;
+        // 多取一个，留给哨兵
+        Collection<ZSetOperations.TypedTuple<String>> tuples;
+        if (before == null) {
+            tuples = stringRedisTemplate.opsForZSet().reverseRangeByScoreWithScores(
+                    key, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, count + 1);
+        } else if (beforeId == null) {
+            tuples = stringRedisTemplate.opsForZSet().reverseRangeByScoreWithScores(
+                    key, Double.NEGATIVE_INFINITY, before - 1, 0, count + 1);
+        } else {
+            tuples = reversePageAfter(key, before, String.valueOf(beforeId), count + 1);
+        }
+        // 哨兵 score 为 0，任何游标下都在范围内；一个都没有说明 ZSET 不存在
+        if (tuples == null || tuples.isEmpty()) {
+            return null;
+        }
+        return tuples.stream()
+                .filter(t -> !CONVERSATION_SENTINEL.equals(t.getValue()))
+                .limit(count)
+                .toList();
+    }
+
+    /**
+     * 按 (score, member) 复合游标倒序取一页：score 小于游标，或 score 相等且 member 字典序小于游标 member
+     *
+     * @param key         ZSET
+     * @param score       游标 score
+     * @param afterMember 游标 member
+     * @param count       条数
+     * @return 按 score、member 倒序的 (member, score)
+     */
+    private List<ZSetOperations.TypedTuple<String>> reversePageAfter(String key, long score, String afterMember, int count) {
+        return toTuples(reversePageAfterRaw(Collections.singletonList(key), score, afterMember, count), 0);
+    }
+
+    /**
+     * 执行复合游标翻页脚本
+     *
+     * @param keys ZSET，之后是只查是否存在的 key
+     * @return 每个附加 key 的 EXISTS 结果 (Long)，然后是 member, score...
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> reversePageAfterRaw(List<String> keys, long score, String afterMember, int count) {
+        List<Object> raw = stringRedisTemplate.execute(
+                REV_PAGE_AFTER_SCRIPT,
+                keys,
+                String.valueOf(score),
+                afterMember,
+                String.valueOf(count)
+        );
+        return raw == null ? Collections.emptyList() : raw;
+    }
+
+    private static List<ZSetOperations.TypedTuple<String>> toTuples(List<Object> flat, int from) {
+        List<ZSetOperations.TypedTuple<String>> tuples = new ArrayList<>(Math.max(flat.size() - from, 0) / 2);
+        for (int i = from; i + 1 < flat.size(); i += 2) {
+            tuples.add(new DefaultTypedTuple<>(String.valueOf(flat.get(i)), Double.valueOf(String.valueOf(flat.get(i + 1)))));
+        }
+        return tuples;
+    }
+
+    /**
+     * 复合游标的排序：score 倒序，score 相同时 member 字典序倒序 (与 ZREVRANGEBYSCORE 一致，回源时用它排序)
+     */
+    public static int compareReverse(long scoreA, String memberA, long scoreB, String memberB) {
+        int byScore = Long.compare(scoreB, scoreA);
+        return byScore != 0 ? byScore : memberB.compareTo(memberA);
+    }
+
+    /**
+     * (score, member) 是否排在复合游标之后
+     *
+     * @param before   游标 score，为空时不过滤
+     * @param beforeId 游标 member，为空时只比较 score
+     */
+    public static boolean isAfterCursor(long score, String member, Long before, String beforeId) {
+        if (before == null) {
+            return true;
+        }
+        if (beforeId == null) {
+            return score < before;
+        }
+        return compareReverse(score, member, before, beforeId) > 0;
+    }
+
+    /**
+     * 回源后写入用户的会话列表
+     *
+     * @param userId 用户ID
+     * @param scores conversationId -> score (最后一条消息时间)
+     */
+    public void loadUserConversations(Long userId, Map<Long, Long> scores) {
+        List<String> args = new ArrayList<>(scores.size() * 2 + 1);
+        args.add(String.valueOf(TimeUnit.MINUTES.toSeconds(RedisConstant.USER_CONVERSATION_DURATION)));
+        scores.forEach((conversationId, score) -> {
+            args.add(String.valueOf(score));
+            args.add(String.valueOf(conversationId));
+        });
+        stringRedisTemplate.execute(
+                LOAD_CONVERSATION_SCRIPT,
+                Collections.singletonList(RedisConstant.USER_CONVERSATION + userId),
+                args.toArray()
+        );
+    }
+
+    /**
+     * 会话列表的 score：时间戳毫秒
+     */
+    public static long conversationScore(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 新建会话时把会话加入成员的会话列表
+     *
+     * @param userIds        成员ID
+     * @param conversationId 会话ID
+     * @param time           会话创建时间
+     */
+    public void touchUserConversations(Collection<Long> userIds, Long conversationId, LocalDateTime time) {
+        Map<Long, Map<Long, Long>> touches = new HashMap<>();
+        long score = conversationScore(time);
+        for (Long userId : userIds) {
+            touches.put(userId, Map.of(conversationId, score));
+        }
+        touchUserConversations(touches);
+    }
+
+    /**
+     * 会话有新消息/新建会话时，增量更新成员的会话列表 (整批一次往返，score 只增不减)
+     *
+     * @param touches userId -> (conversationId -> score)
+     */
+    public void touchUserConversations(Map<Long, Map<Long, Long>> touches) {
+        if (touches == null || touches.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(touches.size());
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(TimeUnit.MINUTES.toSeconds(RedisConstant.USER_CONVERSATION_DURATION)));
+        touches.forEach((userId, byConversation) -> {
+            keys.add(RedisConstant.USER_CONVERSATION + userId);
+            args.add(String.valueOf(byConversation.size()));
+            byConversation.forEach((conversationId, score) -> {
+                args.add(String.valueOf(score));
+                args.add(String.valueOf(conversationId));
+            });
+        });
+        stringRedisTemplate.execute(TOUCH_CONVERSATION_SCRIPT, keys, args.toArray());
+    }
+
+    /**
+     * 批量获取会话摘要 (一次 Pipeline 读取基本信息与最后一条消息，未命中的一条 IN 查询回源)
+     *
+     * @param conversationIds 会话ID
+     * @return Map<Long, ConversationSummary> key: conversationId，不存在的会话不包含在内
+     */
+    public Map<Long, ConversationSummary> getConversationSummaries(List<Long> conversationIds) {
+        if (conversationIds == null || conversationIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                for (Long id : conversationIds) {
+                    operations.opsForValue().get(RedisConstant.CONVERSATION_INFO + id);
+                    operations.opsForValue().get(RedisConstant.CONVERSATION_LAST_MESSAGE + id);
+                }
+                return null;
+            }
+        });
+
+        Map<Long, ConversationSummary> summaries = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (int i = 0; i < conversationIds.size(); i++) {
+            Long id = conversationIds.get(i);
+            Object info = results.get(i * 2);
+            Object last = results.get(i * 2 + 1);
+            // 最后一条消息缓存由落库线程写入，过期后由回源补写；还没有消息的会话缓存的是空标记
+            if (info instanceof ConversationInfoCache infoCache && last instanceof ChatMessageCache lastMessage) {
+                if (!infoCache.isNullPlaceholder()) {
+                    summaries.put(id, new ConversationSummary(infoCache, lastMessage.isNullPlaceholder() ? null : lastMessage));
+                }
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return summaries;
+        }
+
+        // 回源：会话表里就有最后一条消息的冗余字段
+        List<Conversation> dbConversations = conversationDao.selectBatchIds(missingIds);
+        Map<String, Object> writeToRedisMap = new HashMap<>();
+        Map<String, ChatMessageCache> lastMessages = new HashMap<>();
+        for (Conversation conversation : dbConversations) {
+            ConversationInfoCache infoCache = ConversationInfoCache.builder()
+                    .conversationId(conversation.getId())
+                    .type(conversation.getType())
+                    .title(conversation.getTitle())
+                    .avatar(conversation.getAvatar())
+                    .ownerId(conversation.getOwnerId())
+                    .status(conversation.getStatus())
+                    .build();
+            ChatMessageCache lastMessage = conversation.getLastMessageId() == null ? null : ChatMessageCache.builder()
+                    .messageId(conversation.getLastMessageId())
+                    .content(conversation.getLastMessageContent())
+                    .createTime(conversation.getLastMessageTime())
+                    .build();
+            summaries.put(conversation.getId(), new ConversationSummary(infoCache, lastMessage));
+            writeToRedisMap.put(RedisConstant.CONVERSATION_INFO + conversation.getId(), infoCache);
+            lastMessages.put(RedisConstant.CONVERSATION_LAST_MESSAGE + conversation.getId(),
+                    lastMessage != null ? lastMessage : ChatMessageCache.builder().messageId(-1L).build());
+        }
+        setAllWithJitter(writeToRedisMap, RedisConstant.CONVERSATION_INFO_DURATION);
+        // 最后一条消息只在不存在时补写 (SET NX)：落库线程写入的一定不比这里查到的旧，不会被覆盖；
+        // 补写之后的新消息由落库线程无条件覆盖 (包括空标记)
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                lastMessages.forEach((key, value) -> operations.opsForValue().setIfAbsent(
+                        key, value, RedisConstant.CONVERSATION_RECENT_MESSAGES_DURATION, TimeUnit.MINUTES));
+                return null;
+            }
+        });
+        return summaries;
+    }
 }
@@ -0,0 +1,63 @@
+package com.telechat.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 单飞 (请求合并)
+ * <p>同一个 key 同时只有一个线程真正执行加载，其余线程等待并共享它的结果 (包括异常)。
+ * 加载结束后立即移除，不缓存结果，结果的缓存交给 Redis。</p>
+ */
+public class SingleFlight {
+
+    // key -> 正在进行的加载
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+
+    // 被合并掉的请求数 (等待别人结果的次数)
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * 执行加载；同一 key 已有加载在进行时等待其结果
+     *
+     * @param key    合并的 key
+     * @param loader 加载逻辑
+     * @return 加载结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = calls.putIfAbsent(key, mine);
+        if (existing != null) {
+            shared.increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, mine);
+        }
+    }
+
+    /**
+     * 累计被合并的请求数
+     */
+    public long sharedCount() {
+        return shared.sum();
+    }
+}
@@ -0,0 +1,154 @@
+package com.telechat.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.telechat.constant.RedisConstant;
+import com.telechat.pojo.cache.UserInfoCache;
+import com.telechat.properties.CacheProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户信息本地缓存 (L1，Redis 为 L2)
+ * <p>热点用户 (客服账号、群主等) 直接在进程内命中，省掉网络往返与 JSON 反序列化。
+ * 修改用户信息时通过 Redis 发布订阅广播失效，所有节点 (包括自己) 收到后删除本地副本；
+ * 广播丢失或与回填并发时，脏数据最多存活一个本地过期时间。</p>
+ */
+@Component
+@Slf4j
+public class UserInfoNearCache implements MessageListener {
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    // 值可能是空对象标记 (userId = -1)，与 Redis 中的防穿透策略一致
+    private Cache<Long, UserInfoCache> cache;
+
+    // L2 (Redis) 命中/未命中次数，L1 的统计由 Caffeine 记录
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getUserInfoLocalMaxSize())
+                .expireAfterWrite(cacheProperties.getUserInfoLocalTtlSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        redisMessageListenerContainer.addMessageListener(this,
+                new ChannelTopic(RedisConstant.USER_INFO_INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 读取本地缓存
+     *
+     * @param userId 用户ID
+     * @return UserInfoCache (可能是空对象标记)，未命中返回 null
+     */
+    public UserInfoCache get(Long userId) {
+        return cache.getIfPresent(userId);
+    }
+
+    /**
+     * 批量读取本地缓存
+     *
+     * @param userIds 用户ID集合
+     * @return Map<Long, UserInfoCache> 只包含命中的用户 (可能含空对象标记)
+     */
+    public Map<Long, UserInfoCache> getAll(Collection<Long> userIds) {
+        return cache.getAllPresent(userIds);
+    }
+
+    /**
+     * 写入本地缓存 (从 Redis 或数据库读到之后回填)
+     */
+    public void put(Long userId, UserInfoCache userInfoCache) {
+        cache.put(userId, userInfoCache);
+    }
+
+    /**
+     * 批量写入本地缓存
+     */
+    public void putAll(Map<Long, UserInfoCache> userInfoCaches) {
+        cache.putAll(userInfoCaches);
+    }
+
+    /**
+     * 记录 L2 (Redis) 的命中情况
+     *
+     * @param hits   命中次数
+     * @param misses 未命中次数
+     */
+    public void recordRedis(int hits, int misses) {
+        redisHits.add(hits);
+        redisMisses.add(misses);
+    }
+
+    /**
+     * 广播失效：先删本地，再通知其他节点
+     *
+     * @param userId 用户ID
+     */
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+        try {
+            stringRedisTemplate.convertAndSend(RedisConstant.USER_INFO_INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 其他节点的副本会在本地过期时间后自然失效
+            log.error("用户信息本地缓存失效广播失败: userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 收到失效广播 (自己发出的也会收到，重复删除无副作用)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            cache.invalidate(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("无法识别的用户信息失效消息: {}", message);
+        }
+    }
+
+    /**
+     * 各级缓存命中统计
+     *
+     * @return l1Hits/l1Misses/l1HitRate: 本地缓存, l2Hits/l2Misses/l2HitRate: Redis (只统计 L1 未命中的请求), l1Size: 本地条数
+     */
+    public Map<String, Object> stats() {
+        CacheStats l1 = cache.stats();
+        long l2Hits = redisHits.sum();
+        long l2Misses = redisMisses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("l1Hits", l1.hitCount());
+        stats.put("l1Misses", l1.missCount());
+        stats.put("l1HitRate", l1.hitRate());
+        stats.put("l2Hits", l2Hits);
+        stats.put("l2Misses", l2Misses);
+        stats.put("l2HitRate", l2Hits + l2Misses == 0 ? 1.0 : (double) l2Hits / (l2Hits + l2Misses));
+        stats.put("l1Size", cache.estimatedSize());
+        return stats;
+    }
+}
@@ -0,0 +1,337 @@
+package com.telechat.websocket;
+
+import com.telechat.mapper.dao.ChatMessageDao;
+import com.telechat.mapper.dao.ConversationDao;
+import com.telechat.pojo.entity.ChatMessage;
+import com.telechat.pojo.entity.Conversation;
+import com.telechat.properties.ChatProperties;
+import com.telechat.util.RedisTemplateUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天消息批量落库 (Group Commit)
+ * <p>发送线程只负责入队，单个写线程从有界队列中批量取出消息，
+ * 用一条多行 INSERT 写入 chat_message，并在同一个事务里批量更新会话的最后一条消息。</p>
+ * 队列越忙，每批攒的消息越多，JDBC 往返次数与消息量解耦。
+ * <p>消息在落库前已经分配ID并推送给接收者，不能丢：数据库不可用时整批按指数退避 (有上限) 一直重试到恢复，
+ * 期间队列写满后发送方入队超时，提示系统繁忙。只有违反约束等重试也不会成功的错误才逐条写入，隔离坏消息。</p>
+ */
+@Component
+@Slf4j
+public class ChatMessageBatchWriter {
+
+    @Autowired
+    private ChatMessageDao chatMessageDao;
+
+    @Autowired
+    private ConversationDao conversationDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ChatProperties chatProperties;
+
+    @Autowired
+    private RedisTemplateUtil redisTemplateUtil;
+
+    @Autowired
+    private CounterPushCoalescer counterPushCoalescer;
+
+    private BlockingQueue<ChatMessage> queue;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(chatProperties.getQueueCapacity());
+        running = true;
+        writerThread = new Thread(this::runLoop, "chat-message-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("聊天消息批量写线程已启动，队列容量: {}, 批大小: {}",
+                chatProperties.getQueueCapacity(), chatProperties.getBatchSize());
+    }
+
+    /**
+     * 提交一条待落库的消息
+     *
+     * @param message 消息 (ID 已分配)
+     * @return false 表示队列已满，调用方应提示系统繁忙
+     */
+    public boolean submit(ChatMessage message) {
+        try {
+            return queue.offer(message, chatProperties.getOfferTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 当前积压的消息数
+     */
+    public int backlog() {
+        return queue.size();
+    }
+
+    private void runLoop() {
+        int batchSize = chatProperties.getBatchSize();
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ChatMessage first = queue.poll(chatProperties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 上一批写库期间堆积的消息会在这里被一次性取走
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 关闭时被中断，不再等待新消息，继续把剩余消息写完
+                running = false;
+            } catch (Exception e) {
+                log.error("聊天消息批量写入异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 落库一批消息，成功提交后更新缓存 (缓存只在提交后更新一次，不随重试重复执行)
+     */
+    void flush(List<ChatMessage> batch) {
+        if (writeWithRetry(batch)) {
+            afterCommit(batch);
+            return;
+        }
+        // 违反约束：逐条写入，只丢弃坏消息
+        List<ChatMessage> written = new ArrayList<>(batch.size());
+        for (ChatMessage message : batch) {
+            if (writeWithRetry(List.of(message))) {
+                written.add(message);
+            } else if (isDuplicate(message)) {
+                // 之前某次提交其实已经成功 (例如提交后连接断开)，不算丢失；
+                // 缓存还没有更新过，照常走提交后的处理 (各项缓存更新按消息ID幂等)
+                log.info("聊天消息已存在，跳过写入: id={}", message.getId());
+                written.add(message);
+            } else {
+                log.error("聊天消息违反约束，已丢弃: id={}, conversationId={}",
+                        message.getId(), message.getConversationId());
+            }
+        }
+        if (!written.isEmpty()) {
+            afterCommit(written);
+        }
+    }
+
+    /**
+     * 写入直到成功，瞬时错误 (连接失败、超时、死锁等) 按指数退避一直重试
+     *
+     * @return true 写入成功，false 违反约束 (重试也不会成功)
+     */
+    private boolean writeWithRetry(List<ChatMessage> batch) {
+        long backoffMs = chatProperties.getWriteRetryInitialBackoffMs();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeInTransaction(batch);
+                return true;
+            } catch (Exception e) {
+                if (isConstraintViolation(e)) {
+                    log.warn("聊天消息写入违反约束，批大小: {}", batch.size(), e);
+                    return false;
+                }
+                if (attempt == 1) {
+                    log.error("聊天消息批量写入失败，{} 毫秒后重试，批大小: {}", backoffMs, batch.size(), e);
+                } else {
+                    log.warn("聊天消息批量写入失败，第 {} 次，{} 毫秒后重试，批大小: {}, 积压: {}, 原因: {}",
+                            attempt, backoffMs, batch.size(), queue.size(), e.getMessage());
+                }
+                sleepUninterruptibly(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, chatProperties.getWriteRetryMaxBackoffMs());
+            }
+        }
+    }
+
+    private void writeInTransaction(List<ChatMessage> batch) {
+        List<Conversation> lastMessages = collectLastMessages(batch);
+        transactionTemplate.executeWithoutResult(status -> {
+            chatMessageDao.insertBatch(batch);
+            conversationDao.updateLastMessageBatch(lastMessages);
+        });
+    }
+
+    /**
+     * 是否为重试也不会成功的错误 (主键冲突、字段超长、外键等)
+     */
+    private static boolean isConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isDuplicate(ChatMessage message) {
+        try {
+            return chatMessageDao.existsById(message.getId());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 事务提交后更新缓存 (失败只记日志，不影响落库结果)
+     */
+    private void afterCommit(List<ChatMessage> batch) {
+        try {
+            redisTemplateUtil.pushRecentMessages(batch, chatProperties.getRecentCacheSize());
+        } catch (Exception e) {
+            log.error("最近消息缓存更新失败，批大小: {}", batch.size(), e);
+        }
+        Map<Long, List<ChatMessage>> byConversation = new HashMap<>();
+        for (ChatMessage message : batch) {
+            byConversation.computeIfAbsent(message.getConversationId(), k -> new ArrayList<>()).add(message);
+        }
+        // 未读计数和会话列表共用同一份成员列表，每个会话只取一次
+        Map<Long, Set<Long>> membersByConversation;
+        try {
+            membersByConversation = new HashMap<>();
+            for (Long conversationId : byConversation.keySet()) {
+                membersByConversation.put(conversationId,
+                        redisTemplateUtil.getConversationMemberCache(conversationId).keySet());
+            }
+        } catch (Exception e) {
+            log.error("会话成员获取失败，跳过未读计数与会话列表更新，批大小: {}", batch.size(), e);
+            return;
+        }
+        Map<Long, Map<Long, Long>> unreadDeltas = collectUnreadDeltas(byConversation, membersByConversation);
+        try {
+            redisTemplateUtil.incrementUnread(unreadDeltas);
+        } catch (Exception e) {
+            // 丢失的增量在下次校准时由数据库统计结果修正
+            log.error("未读计数更新失败，批大小: {}", batch.size(), e);
+        }
+        try {
+            // 整批的增量交给推送合并，同一用户在窗口内只收到一帧
+            counterPushCoalescer.conversationUnread(unreadDeltas);
+        } catch (Exception e) {
+            // 客户端下次拉取未读数时自然纠正
+            log.error("未读计数推送失败，批大小: {}", batch.size(), e);
+        }
+        try {
+            redisTemplateUtil.touchUserConversations(collectConversationTouches(byConversation, membersByConversation));
+        } catch (Exception e) {
+            // 会话列表缓存过期后从数据库重建
+            log.error("会话列表更新失败，批大小: {}", batch.size(), e);
+        }
+    }
+
+    /**
+     * 未读增量：每条消息给会话内除发送者以外的成员 +1
+     *
+     * @return userId -> (conversationId -> 增量)
+     */
+    private Map<Long, Map<Long, Long>> collectUnreadDeltas(Map<Long, List<ChatMessage>> byConversation,
+                                                           Map<Long, Set<Long>> membersByConversation) {
+        Map<Long, Map<Long, Long>> deltas = new HashMap<>();
+        byConversation.forEach((conversationId, messages) -> {
+            Set<Long> memberIds = membersByConversation.get(conversationId);
+            for (Long memberId : memberIds) {
+                long count = 0;
+                for (ChatMessage message : messages) {
+                    if (!memberId.equals(message.getSenderId())) {
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    deltas.computeIfAbsent(memberId, k -> new HashMap<>()).put(conversationId, count);
+                }
+            }
+        });
+        return deltas;
+    }
+
+    /**
+     * 会话列表更新：会话的全部成员 (包括发送者) 把该会话的 score 推到本批最后一条消息的时间
+     *
+     * @return userId -> (conversationId -> score)
+     */
+    private Map<Long, Map<Long, Long>> collectConversationTouches(Map<Long, List<ChatMessage>> byConversation,
+                                                                  Map<Long, Set<Long>> membersByConversation) {
+        Map<Long, Map<Long, Long>> touches = new HashMap<>();
+        byConversation.forEach((conversationId, messages) -> {
+            long score = 0;
+            for (ChatMessage message : messages) {
+                score = Math.max(score, RedisTemplateUtil.conversationScore(message.getCreateTime()));
+            }
+            for (Long memberId : membersByConversation.get(conversationId)) {
+                touches.computeIfAbsent(memberId, k -> new HashMap<>()).put(conversationId, score);
+            }
+        });
+        return touches;
+    }
+
+    /**
+     * 每个会话只取本批中 ID 最大的一条作为最后一条消息
+     */
+    private List<Conversation> collectLastMessages(List<ChatMessage> batch) {
+        Map<Long, ChatMessage> latest = new HashMap<>();
+        for (ChatMessage message : batch) {
+            latest.merge(message.getConversationId(), message,
+                    (a, b) -> a.getId() >= b.getId() ? a : b);
+        }
+        List<Conversation> conversations = new ArrayList<>(latest.size());
+        for (ChatMessage message : latest.values()) {
+            conversations.add(Conversation.builder()
+                    .id(message.getConversationId())
+                    .LastMessageId(message.getId())
+                    .LastMessageContent(message.getContent())
+                    .LastMessageTime(message.getCreateTime())
+                    .updatedTime(message.getCreateTime())
+                    .build());
+        }
+        return conversations;
+    }
+
+    /**
+     * 重试等待：关闭时的中断不打断重试，只让写线程在清空队列后退出
+     */
+    private void sleepUninterruptibly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        if (!queue.isEmpty()) {
+            log.warn("聊天消息写线程已停止，仍有 {} 条消息未落库", queue.size());
+        }
+    }
+}
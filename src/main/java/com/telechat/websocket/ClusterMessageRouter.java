@@ -0,0 +1,184 @@
+package com.telechat.websocket;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telechat.constant.RedisConstant;
+import com.telechat.pojo.dto.ws.WsRouteEnvelope;
+import com.telechat.properties.WebSocketProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 跨节点消息路由
+ * <p>每个节点订阅自己的频道 ws:node:{nodeId}。发往其他节点的消息先按目标节点缓冲，
+ * 由发送线程每隔几毫秒合并成一条 PUBLISH，避免一条消息一次网络往返。</p>
+ * <p>PUBLISH 没有订阅者 (目标节点已宕机，会话目录还没过期) 或发送失败时，需要离线存储的消息写入离线收件箱，
+ * 没有订阅者时同时清理指向该节点的会话目录登记。</p>
+ */
+@Component
+@Slf4j
+public class ClusterMessageRouter implements MessageListener {
+
+    private static final TypeReference<List<WsRouteEnvelope>> ENVELOPE_LIST = new TypeReference<>() {};
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private WsSessionDirectory wsSessionDirectory;
+
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TelechatWebSocketHandler webSocketHandler;
+
+    @Autowired
+    private OfflineMessageInbox offlineMessageInbox;
+
+    // nodeId -> 待发送的消息
+    private final Map<String, Queue<WsRouteEnvelope>> pending = new ConcurrentHashMap<>();
+
+    private Thread flushThread;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        redisMessageListenerContainer.addMessageListener(this,
+                new ChannelTopic(RedisConstant.WS_NODE_CHANNEL + wsSessionDirectory.getNodeId()));
+        running = true;
+        flushThread = new Thread(this::flushLoop, "ws-cluster-router");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    /**
+     * 转发消息给其他节点上的用户 (异步合并发送)
+     *
+     * @param nodeId    目标节点
+     * @param userIds   接收者ID (均在目标节点上)
+     * @param messageId 消息ID
+     * @param offline   目标节点发现用户已下线时是否写入离线收件箱
+     * @param payload   已序列化的 WsMessage JSON
+     */
+    public void forward(String nodeId, Collection<Long> userIds, Long messageId, boolean offline, String payload) {
+        pending.computeIfAbsent(nodeId, k -> new ConcurrentLinkedQueue<>())
+                .add(new WsRouteEnvelope(List.copyOf(userIds), messageId, offline, payload));
+    }
+
+    /**
+     * 收到其他节点转发过来的消息，投递给本地会话
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            List<WsRouteEnvelope> envelopes = objectMapper.readValue(body, ENVELOPE_LIST);
+            for (WsRouteEnvelope envelope : envelopes) {
+                webSocketHandler.deliverLocal(envelope);
+            }
+        } catch (Exception e) {
+            log.error("跨节点消息处理失败", e);
+        }
+    }
+
+    private void flushLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(webSocketProperties.getRouteFlushIntervalMs());
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            flush();
+        }
+        flush();
+    }
+
+    private void flush() {
+        int batchSize = webSocketProperties.getRouteBatchSize();
+        for (Map.Entry<String, Queue<WsRouteEnvelope>> entry : pending.entrySet()) {
+            Queue<WsRouteEnvelope> queue = entry.getValue();
+            while (!queue.isEmpty()) {
+                List<WsRouteEnvelope> batch = new ArrayList<>(Math.min(batchSize, 16));
+                WsRouteEnvelope envelope;
+                while (batch.size() < batchSize && (envelope = queue.poll()) != null) {
+                    batch.add(envelope);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                publish(entry.getKey(), batch);
+            }
+        }
+    }
+
+    private void publish(String nodeId, List<WsRouteEnvelope> batch) {
+        Long receivers;
+        try {
+            receivers = stringRedisTemplate.convertAndSend(RedisConstant.WS_NODE_CHANNEL + nodeId,
+                    objectMapper.writeValueAsString(batch));
+        } catch (Exception e) {
+            log.error("跨节点消息发送失败: nodeId={}, size={}", nodeId, batch.size(), e);
+            storeOffline(batch);
+            return;
+        }
+        if (receivers == null || receivers == 0) {
+            // 目标节点已不在线：消息转入离线收件箱，目录登记立即作废，后续消息不再发往该节点
+            log.warn("跨节点消息没有订阅者: nodeId={}, size={}", nodeId, batch.size());
+            storeOffline(batch);
+            try {
+                Set<Long> userIds = new HashSet<>();
+                batch.forEach(envelope -> userIds.addAll(envelope.getUserIds()));
+                wsSessionDirectory.evict(userIds, nodeId);
+            } catch (Exception e) {
+                log.error("清理失效节点的会话登记失败: nodeId={}", nodeId, e);
+            }
+        }
+    }
+
+    /**
+     * 没有送达目标节点的消息写入离线收件箱 (只处理需要离线存储的消息)
+     */
+    private void storeOffline(List<WsRouteEnvelope> batch) {
+        for (WsRouteEnvelope envelope : batch) {
+            if (!envelope.isOffline() || envelope.getMessageId() == null) {
+                continue;
+            }
+            for (Long userId : envelope.getUserIds()) {
+                offlineMessageInbox.store(userId, envelope.getMessageId(), envelope.getPayload());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flushThread);
+        flushThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
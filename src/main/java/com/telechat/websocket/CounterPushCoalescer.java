@@ -0,0 +1,131 @@
+package com.telechat.websocket;
+
+import com.telechat.pojo.dto.ws.CounterUpdateNotification;
+import com.telechat.pojo.dto.ws.WsMessage;
+import com.telechat.pojo.enums.WsMessageType;
+import com.telechat.properties.ChatProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 未读计数推送 (代替客户端轮询未读数接口)
+ * <p>计数变化先按用户累积，每个合并窗口 (默认 200ms) 统一推送一次，
+ * 一个窗口内同一用户的多次变化 (群聊刷屏、批量处理申请) 只产生一帧 COUNTER 消息。</p>
+ * <p>推送是尽力而为：不在线不补发、窗口内节点宕机会丢失，客户端上线或重连时以接口查询结果为准。</p>
+ */
+@Component
+@Slf4j
+public class CounterPushCoalescer {
+
+    @Autowired
+    private TelechatWebSocketHandler webSocketHandler;
+
+    @Autowired
+    private ChatProperties chatProperties;
+
+    // userId -> 本窗口内累积的变化；只在 compute/remove 中修改，同一用户的累积与取走互斥
+    private final ConcurrentHashMap<Long, CounterUpdateNotification> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "counter-push");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    public void init() {
+        long window = chatProperties.getCounterPushWindowMs();
+        flusher.scheduleWithFixedDelay(this::flush, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flusher.shutdown();
+    }
+
+    /**
+     * 未读好友申请数变化
+     *
+     * @param userId 用户ID
+     * @param delta  增量
+     */
+    public void contactApply(Long userId, long delta) {
+        pending.compute(userId, (k, update) -> {
+            update = update == null ? new CounterUpdateNotification() : update;
+            update.addContactApply(delta);
+            return update;
+        });
+    }
+
+    /**
+     * 未读好友申请数归零
+     *
+     * @param userId 用户ID
+     */
+    public void contactApplyReset(Long userId) {
+        pending.compute(userId, (k, update) -> {
+            update = update == null ? new CounterUpdateNotification() : update;
+            update.resetContactApply();
+            return update;
+        });
+    }
+
+    /**
+     * 会话未读数变化 (一批消息落库后)
+     *
+     * @param deltas userId -> (conversationId -> 增量)
+     */
+    public void conversationUnread(Map<Long, Map<Long, Long>> deltas) {
+        deltas.forEach((userId, byConversation) -> pending.compute(userId, (k, update) -> {
+            update = update == null ? new CounterUpdateNotification() : update;
+            byConversation.forEach(update::addConversation);
+            return update;
+        }));
+    }
+
+    /**
+     * 会话未读数归零 (已读)
+     *
+     * @param userId         用户ID
+     * @param conversationId 会话ID
+     */
+    public void conversationCleared(Long userId, Long conversationId) {
+        pending.compute(userId, (k, update) -> {
+            update = update == null ? new CounterUpdateNotification() : update;
+            update.clearConversation(conversationId);
+            return update;
+        });
+    }
+
+    /**
+     * 取走所有用户本窗口的累积变化并推送
+     */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, WsMessage<CounterUpdateNotification>> messages = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            CounterUpdateNotification update = pending.remove(userId);
+            if (update != null) {
+                messages.put(userId, WsMessage.of(WsMessageType.COUNTER, null, null, update));
+            }
+        }
+        try {
+            webSocketHandler.sendTransient(messages);
+        } catch (Exception e) {
+            // 调度线程上的异常会终止后续调度，这里必须吞掉
+            log.error("未读计数推送失败，用户数: {}", messages.size(), e);
+        }
+    }
+}
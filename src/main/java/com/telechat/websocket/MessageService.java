@@ -1,14 +1,27 @@
 package com.telechat.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telechat.pojo.dto.ws.ChatMessageNotification;
 import com.telechat.pojo.dto.ws.ContactApplyNotification;
 import com.telechat.pojo.dto.ws.WsMessage;
 import com.telechat.pojo.enums.WsMessageType;
+import com.telechat.properties.ChatProperties;
+import com.telechat.util.SnowflakeIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
@@ -17,6 +30,30 @@ public class MessageService {
     @Autowired
     private TelechatWebSocketHandler webSocketHandler;
 
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Autowired
+    private ChatProperties chatProperties;
+
+    // 大群推送通道：每个通道一个线程，同一会话固定走同一通道
+    private ExecutorService[] fanoutLanes;
+
+    @PostConstruct
+    public void init() {
+        fanoutLanes = new ExecutorService[chatProperties.getFanoutLanes()];
+        for (int i = 0; i < fanoutLanes.length; i++) {
+            String name = "chat-fanout-" + i;
+            fanoutLanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(chatProperties.getFanoutQueueCapacity()),
+                    r -> {
+                        Thread t = new Thread(r, name);
+                        t.setDaemon(true);
+                        return t;
+                    });
+        }
+    }
+
     /**
      * 发送好友申请通知
      * @param receiverId 接收者ID (也就是被加的那个人)
@@ -25,9 +62,10 @@ public class MessageService {
     public void sendContactApplyNotification(Long receiverId, ContactApplyNotification notification) {
         try {
             // 构建标准消息
+            // 消息ID 使用雪花ID (离线收件箱按消息ID排序)，申请ID 在 data.applyId 中
             WsMessage<Object> message = WsMessage.of(
                     WsMessageType.CONTACT_APPLY,
-                    notification.getApplyId(),
+                    snowflakeIdGenerator.nextId(),
                     notification.getSenderId(),
                     notification
             );
@@ -41,4 +79,77 @@ public class MessageService {
         }
     }
 
+    /**
+     * 推送聊天消息给会话成员
+     * <p>接收者不超过一批时在当前线程直接推送；大群按批拆分后交给该会话所在的推送通道，
+     * 发送者不用等几千人推送完，各批之间也能穿插其他会话的推送。消息只序列化一次，各批共享同一个帧。</p>
+     * @param conversationId 会话ID
+     * @param receiverIds 接收者ID集合
+     * @param notification 消息内容
+     */
+    public void sendChatMessage(Long conversationId, List<Long> receiverIds, ChatMessageNotification notification) {
+        WsMessage<Object> message = WsMessage.of(
+                WsMessageType.CHAT,
+                notification.getMessageId(),
+                notification.getSenderId(),
+                notification
+        );
+        int chunkSize = chatProperties.getFanoutChunkSize();
+        if (receiverIds.size() <= chunkSize) {
+            broadcast(receiverIds, message);
+            return;
+        }
+
+        TextMessage frame = webSocketHandler.encode(message);
+        if (frame == null) {
+            return;
+        }
+        ExecutorService lane = fanoutLanes[(int) Math.floorMod(conversationId, (long) fanoutLanes.length)];
+        for (int from = 0; from < receiverIds.size(); from += chunkSize) {
+            List<Long> chunk = new ArrayList<>(receiverIds.subList(from, Math.min(from + chunkSize, receiverIds.size())));
+            try {
+                lane.execute(() -> broadcast(chunk, frame, message));
+            } catch (RejectedExecutionException e) {
+                // 通道积压，由发送线程自己推送 (反压)
+                broadcast(chunk, frame, message);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (ExecutorService lane : fanoutLanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * 群发消息 (只序列化一次)
+     * @param receiverIds 接收者ID集合
+     * @param message 消息
+     */
+    public void broadcast(Collection<Long> receiverIds, WsMessage<?> message) {
+        try {
+            webSocketHandler.broadcast(receiverIds, message);
+        } catch (Exception e) {
+            log.error("消息群发失败: type={}, messageId={}, 接收者数量={}",
+                    message.getType(), message.getMessageId(), receiverIds.size(), e);
+        }
+    }
+
+    /**
+     * 按批群发已序列化好的帧 (大群的各批共享同一个帧)
+     * @param receiverIds 本批接收者ID
+     * @param frame 已序列化的消息
+     * @param message 原消息 (取消息ID与类型)
+     */
+    private void broadcast(Collection<Long> receiverIds, TextMessage frame, WsMessage<?> message) {
+        try {
+            webSocketHandler.broadcast(receiverIds, frame, message.getMessageId(), WsMessageType.isOffline(message.getType()));
+        } catch (Exception e) {
+            log.error("消息群发失败: type={}, messageId={}, 接收者数量={}",
+                    message.getType(), message.getMessageId(), receiverIds.size(), e);
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.telechat.websocket;
+
+import com.telechat.constant.RedisConstant;
+import com.telechat.properties.WebSocketProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 离线消息收件箱
+ * <p>每个用户一个 ZSET：score 固定为 0，成员为 "19位补零的消息ID:消息JSON"，
+ * 按字典序即按雪花ID排序（雪花ID超出 double 精度，不能直接做 score）。
+ * 客户端重连或同步时从头分页补发整个收件箱，客户端 ACK 后按消息ID删除。</p>
+ */
+@Component
+@Slf4j
+public class OfflineMessageInbox {
+
+    // 写入 + 截断到最大长度 + 续期，一次往返
+    private static final DefaultRedisScript<Long> STORE_SCRIPT;
+
+    // 从某个成员 (含) 开始按字典序取一页
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> PAGE_SCRIPT;
+
+    // 按消息ID删除 (成员带着 payload，按 "ID:" 前缀的字典序区间删除)
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT;
+
+    static {
+        STORE_SCRIPT = new DefaultRedisScript<>();
+        STORE_SCRIPT.setScriptText(
+                "redis.call('zadd', KEYS[1], 0, ARGV[1]) " +
+                "local n = redis.call('zcard', KEYS[1]) " +
+                "local max = tonumber(ARGV[2]) " +
+                "if n > max then redis.call('zremrangebyrank', KEYS[1], 0, n - max - 1) end " +
+                "redis.call('expire', KEYS[1], ARGV[3]) " +
+                "return n");
+        STORE_SCRIPT.setResultType(Long.class);
+
+        PAGE_SCRIPT = new DefaultRedisScript<>();
+        PAGE_SCRIPT.setScriptText("return redis.call('zrangebylex', KEYS[1], ARGV[1], '+', 'LIMIT', 0, ARGV[2])");
+        PAGE_SCRIPT.setResultType(List.class);
+
+        REMOVE_SCRIPT = new DefaultRedisScript<>();
+        REMOVE_SCRIPT.setScriptText(
+                "local n = 0 " +
+                "for i, id in ipairs(ARGV) do " +
+                "  n = n + redis.call('zremrangebylex', KEYS[1], '[' .. id .. ':', '(' .. id .. ';') " +
+                "end " +
+                "return n");
+        REMOVE_SCRIPT.setResultType(Long.class);
+    }
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    /**
+     * 离线消息
+     *
+     * @param messageId 消息ID
+     * @param payload   WsMessage JSON
+     */
+    public record OfflineMessage(long messageId, String payload) {
+    }
+
+    /**
+     * 存入离线消息
+     *
+     * @param userId    接收者ID
+     * @param messageId 消息ID
+     * @param payload   WsMessage JSON
+     */
+    public void store(Long userId, Long messageId, String payload) {
+        if (messageId == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(
+                    STORE_SCRIPT,
+                    Collections.singletonList(RedisConstant.USER_OFFLINE_INBOX + userId),
+                    member(messageId, payload),
+                    String.valueOf(webSocketProperties.getOfflineInboxMaxSize()),
+                    String.valueOf(TimeUnit.DAYS.toSeconds(webSocketProperties.getOfflineInboxTtlDays()))
+            );
+        } catch (Exception e) {
+            log.error("离线消息写入失败: userId={}, messageId={}", userId, messageId, e);
+        }
+    }
+
+    /**
+     * 删除客户端已确认的消息
+     *
+     * @param userId     用户ID
+     * @param messageIds 已确认的消息ID
+     */
+    public void remove(Long userId, Collection<Long> messageIds) {
+        if (messageIds == null || messageIds.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(
+                    REMOVE_SCRIPT,
+                    Collections.singletonList(RedisConstant.USER_OFFLINE_INBOX + userId),
+                    messageIds.stream().map(this::padId).toArray()
+            );
+        } catch (Exception e) {
+            // 留在收件箱中的消息下次补发时重复推送，客户端按消息ID去重
+            log.error("离线消息删除失败: userId={}, messageIds={}", userId, messageIds, e);
+        }
+    }
+
+    /**
+     * 分页读取 ID 大于 afterId 的离线消息 (升序)
+     *
+     * @param userId  用户ID
+     * @param afterId 起始消息ID (不含)
+     * @param limit   每页条数
+     * @return 离线消息列表
+     */
+    @SuppressWarnings("unchecked")
+    public List<OfflineMessage> page(Long userId, long afterId, int limit) {
+        List<String> members = stringRedisTemplate.execute(
+                PAGE_SCRIPT,
+                Collections.singletonList(RedisConstant.USER_OFFLINE_INBOX + userId),
+                "[" + padId(afterId + 1),
+                String.valueOf(limit)
+        );
+        if (members == null || members.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<OfflineMessage> result = new ArrayList<>(members.size());
+        for (String member : members) {
+            int sep = member.indexOf(':');
+            result.add(new OfflineMessage(Long.parseLong(member.substring(0, sep)), member.substring(sep + 1)));
+        }
+        return result;
+    }
+
+    private String member(long messageId, String payload) {
+        return padId(messageId) + ":" + payload;
+    }
+
+    private String padId(long messageId) {
+        return String.format("%019d", messageId);
+    }
+}
@@ -1,6 +1,8 @@
 package com.telechat.websocket;
 
 import com.telechat.security.JwtTokenProvider;
+import com.telechat.security.TokenRevocationRegistry;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.server.ServerHttpRequest;
@@ -21,21 +23,25 @@ public class TelechatHandshakeInterceptor implements HandshakeInterceptor {
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @Override
     public boolean beforeHandshake(ServerHttpRequest request,
                                    ServerHttpResponse response,
                                    WebSocketHandler wsHandler,
                                    Map<String, Object> attributes) {
 
-        // 从 query 参数中取 token
+        // 从 query 参数中取访问令牌 (只在握手时校验，连接建立后令牌过期不影响已有连接)
         URI uri = request.getURI();
         MultiValueMap<String, String> params =
                 UriComponentsBuilder.fromUri(uri).build().getQueryParams();
 
         String token = params.getFirst("token");
 
-        if (token != null && jwtTokenProvider.validateToken(token)) {
-            Long userId = jwtTokenProvider.getUserIdFromToken(token);
+        Claims claims = jwtTokenProvider.parseClaims(token);
+        if (claims != null && !tokenRevocationRegistry.isRevoked(claims)) {
+            Long userId = JwtTokenProvider.getUserId(claims);
             attributes.put("userId", userId);
             log.info("WebSocket连接建立，用户ID: {}", userId);
             return true;
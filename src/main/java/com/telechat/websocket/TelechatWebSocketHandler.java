@@ -2,9 +2,15 @@ package com.telechat.websocket;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telechat.exception.exceptions.MessageException;
 import com.telechat.pojo.dto.ws.WsMessage;
+import com.telechat.pojo.dto.ws.WsRouteEnvelope;
+import com.telechat.properties.WebSocketProperties;
 import com.telechat.pojo.enums.WsMessageType;
+import com.telechat.service.ChatMessageService;
+import com.telechat.pojo.vo.WsSessionStatsVO;
 import com.telechat.util.SnowflakeIdGenerator; // [引用 1]
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,13 +18,51 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Component
 @Slf4j
 public class TelechatWebSocketHandler implements WebSocketHandler {
 
-    private static final ConcurrentHashMap<Long, WebSocketSession> userSessions = new ConcurrentHashMap<>();
+    // 会话属性中保存发送队列的 key
+    private static final String OUTBOUND_ATTRIBUTE = "outbound";
+
+    private static final ConcurrentHashMap<Long, WsOutboundSession> userSessions = new ConcurrentHashMap<>();
+
+    // 发送队列的写任务跑在虚拟线程上，慢客户端阻塞的只是自己的虚拟线程
+    private final ExecutorService outboundExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-outbound-", 0).factory());
+
+    // 写出成功的业务消息登记 ACK 跟踪，写不出去的转入离线收件箱
+    private final WsOutboundSession.Listener outboundListener = new WsOutboundSession.Listener() {
+        @Override
+        public void onSent(WsOutboundSession outbound, WsOutboundSession.Frame frame) {
+            if (frame.reliable()) {
+                wsDeliveryTracker.track(outbound.getSession(), outbound.getUserId(),
+                        frame.messageId(), frame.message().getPayload());
+            }
+        }
+
+        @Override
+        public void onUnsent(WsOutboundSession outbound, WsOutboundSession.Frame frame) {
+            if (frame.reliable()) {
+                offlineMessageInbox.store(outbound.getUserId(), frame.messageId(), frame.message().getPayload());
+            }
+        }
+
+        @Override
+        public void onBroken(WsOutboundSession outbound) {
+            removeSession(outbound.getSession());
+        }
+    };
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -27,11 +71,41 @@ public class TelechatWebSocketHandler implements WebSocketHandler {
     @Autowired
     private SnowflakeIdGenerator snowflakeIdGenerator;
 
+    @Autowired
+    private ChatMessageService chatMessageService;
+
+    // 会话目录 (userId -> nodeId)，用于跨节点投递
+    @Autowired
+    private WsSessionDirectory wsSessionDirectory;
+
+    @Autowired
+    private ClusterMessageRouter clusterMessageRouter;
+
+    @Autowired
+    private OfflineMessageInbox offlineMessageInbox;
+
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    // 消息必达：跟踪未确认的消息并超时重传
+    @Autowired
+    private WsDeliveryTracker wsDeliveryTracker;
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         Long userId = getUserId(session);
         if (userId != null) {
-            userSessions.put(userId, session);
+            WsOutboundSession outbound = new WsOutboundSession(
+                    session,
+                    userId,
+                    webSocketProperties.getOutboundQueueCapacity(),
+                    webSocketProperties.getOutboundOverflowPolicy(),
+                    outboundExecutor,
+                    outboundListener
+            );
+            session.getAttributes().put(OUTBOUND_ATTRIBUTE, outbound);
+            userSessions.put(userId, outbound);
+            wsSessionDirectory.register(userId);
             log.info("用户 [{}] 上线，当前在线: {}", userId, userSessions.size());
 
             // 2. 发送连接成功通知 (系统消息也带上 ID)
@@ -43,6 +117,9 @@ public class TelechatWebSocketHandler implements WebSocketHandler {
                     "连接成功"
             );
             sendMsg(userId, systemMsg);
+
+            // 3. 补发离线收件箱中尚未确认的消息
+            replayOffline(userId, outbound);
         }
     }
 
@@ -60,14 +137,28 @@ public class TelechatWebSocketHandler implements WebSocketHandler {
             String typeStr = rootNode.path("type").asText();
 
             // 3. 处理不同类型的消息
-            if (WsMessageType.TYPING.getValue().equals(typeStr)) {
+            if (WsMessageType.CHAT.getValue().equals(typeStr)) {
+                handleChatMessage(userId, rootNode);
+            } else if (WsMessageType.TYPING.getValue().equals(typeStr)) {
                 handleTypingMessage(userId, rootNode);
+            } else if (WsMessageType.SYNC.getValue().equals(typeStr)) {
+                WsOutboundSession outbound = getOutbound(session);
+                if (outbound != null) {
+                    replayOffline(userId, outbound);
+                }
+            } else if (WsMessageType.ACK.getValue().equals(typeStr)) {
+                // 处理客户端发来的 ACK 确认消息 (消息必达)
+                handleAckMessage(session, rootNode);
             }
-            // 扩展：处理客户端发来的 ACK 确认消息 (企业级功能：消息必达)
-            // else if ("ack".equals(typeStr)) {
-            //     handleAckMessage(userId, rootNode);
-            // }
 
+        } catch (MessageException e) {
+            // 业务校验失败 (非成员、内容为空、系统繁忙等)，把原因回给发送者
+            sendMsg(userId, WsMessage.of(
+                    WsMessageType.ERROR,
+                    snowflakeIdGenerator.nextId(),
+                    0L,
+                    e.getMessage()
+            ));
         } catch (Exception e) {
             log.error("消息处理异常: ", e);
             // 错误消息也带上 ID
@@ -80,6 +171,80 @@ public class TelechatWebSocketHandler implements WebSocketHandler {
         }
     }
 
+    /**
+     * 处理聊天消息
+     * 格式: {"type":"chat","data":{"conversationId":1,"content":"hi","messageType":"text","clientMsgId":"xxx"}}
+     */
+    private void handleChatMessage(Long senderId, JsonNode rootNode) {
+        JsonNode dataNode = rootNode.path("data");
+        if (dataNode.isMissingNode()) return;
+
+        long conversationId = dataNode.path("conversationId").asLong();
+        String content = dataNode.path("content").asText(null);
+        String messageType = dataNode.path("messageType").asText(null);
+        String clientMsgId = dataNode.path("clientMsgId").asText(null);
+
+        chatMessageService.send(senderId, conversationId, content, messageType, clientMsgId);
+    }
+
+    /**
+     * 处理客户端 ACK
+     * 格式: {"type":"ack","data":{"messageId":1}} 或 {"type":"ack","data":{"messageIds":[1,2,3]}}
+     */
+    private void handleAckMessage(WebSocketSession session, JsonNode rootNode) {
+        JsonNode dataNode = rootNode.path("data");
+        if (dataNode.isMissingNode()) return;
+
+        List<Long> messageIds = new ArrayList<>();
+        if (dataNode.hasNonNull("messageId")) {
+            messageIds.add(dataNode.path("messageId").asLong());
+        }
+        for (JsonNode idNode : dataNode.path("messageIds")) {
+            messageIds.add(idNode.asLong());
+        }
+        if (!messageIds.isEmpty()) {
+            wsDeliveryTracker.ack(session.getId(), getUserId(session), messageIds);
+        }
+    }
+
+    /**
+     * 补发离线消息
+     * <p>从头分页推送整个收件箱。消息只在客户端 ACK 时按ID从收件箱删除，
+     * 不按客户端最后收到的消息ID截断：雪花ID在不同会话、不同节点之间不是投递顺序，
+     * 比它小的消息可能还没有送达。推送过但未确认的消息下次重连或同步时会再次补发，客户端按消息ID去重即可。</p>
+     */
+    private void replayOffline(Long userId, WsOutboundSession outbound) {
+        try {
+            int pageSize = webSocketProperties.getOfflineReplayPageSize();
+            int maxPages = Math.max(1, webSocketProperties.getOfflineInboxMaxSize() / pageSize + 1);
+            // 分页游标 (本次补发已读到的位置)，不是客户端的确认位置
+            long cursor = 0L;
+            int replayed = 0;
+            for (int i = 0; i < maxPages && outbound.isOpen(); i++) {
+                // 发送队列放不下一整页时先停下，剩余消息留在收件箱，客户端下次 sync 时继续补发
+                if (outbound.remainingCapacity() < pageSize) {
+                    log.warn("用户 [{}] 发送队列积压，暂停补发离线消息", userId);
+                    break;
+                }
+                List<OfflineMessageInbox.OfflineMessage> page = offlineMessageInbox.page(userId, cursor, pageSize);
+                for (OfflineMessageInbox.OfflineMessage offlineMessage : page) {
+                    outbound.enqueue(WsOutboundSession.Frame.of(
+                            new TextMessage(offlineMessage.payload()), offlineMessage.messageId(), true, false));
+                    cursor = offlineMessage.messageId();
+                }
+                replayed += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+            if (replayed > 0) {
+                log.info("用户 [{}] 补发离线消息 {} 条", userId, replayed);
+            }
+        } catch (Exception e) {
+            log.error("用户 [{}] 补发离线消息失败", userId, e);
+        }
+    }
+
     /**
      * 处理 "正在输入" 状态
      */
@@ -102,25 +267,185 @@ public class TelechatWebSocketHandler implements WebSocketHandler {
 
     /**
      * 【核心发送方法】
-     * 保持不变，负责序列化和线程安全发送
+     * 负责序列化和路由：本节点放入连接的发送队列异步写出，其他节点经 Redis 频道转发
      */
     public void sendMsg(Long receiverId, WsMessage<?> message) {
-        WebSocketSession session = userSessions.get(receiverId);
-        if (session == null || !session.isOpen()) {
-            // 进阶：如果不是瞬时消息(typing)，而是业务消息(contact_apply)，
-            //TODO 此时应考虑写入 Redis 离线消息队列
+        TextMessage frame = encode(message);
+        if (frame == null) {
+            return;
+        }
+
+        boolean offline = WsMessageType.isOffline(message.getType());
+
+        // 1. 本节点在线，放入发送队列 (写出后等待 ACK，写不出去时转入离线收件箱)
+        WsOutboundSession outbound = userSessions.get(receiverId);
+        if (outbound != null && outbound.isOpen()) {
+            outbound.enqueue(WsOutboundSession.Frame.of(
+                    frame, message.getMessageId(), offline && message.getMessageId() != null, !offline));
+            return;
+        }
+
+        // 2. 查会话目录，在其他节点则转发
+        String nodeId = wsSessionDirectory.lookup(receiverId);
+        if (nodeId != null && !nodeId.equals(wsSessionDirectory.getNodeId())) {
+            clusterMessageRouter.forward(nodeId, List.of(receiverId), message.getMessageId(), offline, frame.getPayload());
+            return;
+        }
+
+        // 3. 不在线：业务消息写入离线收件箱，瞬时消息 (typing 等) 直接丢弃
+        if (offline) {
+            offlineMessageInbox.store(receiverId, message.getMessageId(), frame.getPayload());
+        }
+    }
+
+    /**
+     * 【群发】同一条消息发给多个接收者 (群聊、系统公告)
+     * <p>消息只序列化一次，同一个 TextMessage 帧在所有本地连接之间共享；
+     * 其余接收者一次 MGET 查会话目录，同一节点的接收者合并成一个信封转发。</p>
+     */
+    public void broadcast(Collection<Long> receiverIds, WsMessage<?> message) {
+        if (receiverIds == null || receiverIds.isEmpty()) {
+            return;
+        }
+        TextMessage frame = encode(message);
+        if (frame == null) {
             return;
         }
+        broadcast(receiverIds, frame, message.getMessageId(), WsMessageType.isOffline(message.getType()));
+    }
 
-        synchronized (session) {
-            try {
-                String json = objectMapper.writeValueAsString(message);
-                session.sendMessage(new TextMessage(json));
-            } catch (IOException e) {
-                log.error("发送消息给用户 [{}] 失败: {}", receiverId, e.getMessage());
-                userSessions.remove(receiverId);
+    /**
+     * 【群发】发送已序列化好的帧
+     * <p>大群按批推送时由调用方先 {@link #encode} 一次，各批共享同一个帧</p>
+     *
+     * @param receiverIds 接收者ID集合
+     * @param frame       已序列化的消息
+     * @param messageId   消息ID (可为 null)
+     * @param offline     是否为业务消息 (需要 ACK，不在线时写入离线收件箱)
+     */
+    public void broadcast(Collection<Long> receiverIds, TextMessage frame, Long messageId, boolean offline) {
+        if (receiverIds == null || receiverIds.isEmpty()) {
+            return;
+        }
+        boolean reliable = offline && messageId != null;
+
+        // 1. 本节点在线的直接入队
+        List<Long> others = new ArrayList<>();
+        for (Long receiverId : receiverIds) {
+            WsOutboundSession outbound = userSessions.get(receiverId);
+            if (outbound != null && outbound.isOpen()) {
+                outbound.enqueue(WsOutboundSession.Frame.of(frame, messageId, reliable, !offline));
+            } else {
+                others.add(receiverId);
+            }
+        }
+        if (others.isEmpty()) {
+            return;
+        }
+
+        // 2. 其他节点上的按节点分组转发，不在线的业务消息写入离线收件箱
+        Map<Long, String> nodes = wsSessionDirectory.lookupAll(others);
+        Map<String, List<Long>> byNode = new HashMap<>();
+        for (Long receiverId : others) {
+            String nodeId = nodes.get(receiverId);
+            if (nodeId != null && !nodeId.equals(wsSessionDirectory.getNodeId())) {
+                byNode.computeIfAbsent(nodeId, k -> new ArrayList<>()).add(receiverId);
+            } else if (offline) {
+                offlineMessageInbox.store(receiverId, messageId, frame.getPayload());
             }
         }
+        byNode.forEach((nodeId, userIds) ->
+                clusterMessageRouter.forward(nodeId, userIds, messageId, offline, frame.getPayload()));
+    }
+
+    /**
+     * 逐个用户发送瞬时消息 (每个用户的内容不同，如未读计数增量)
+     * <p>本节点在线的直接入队；其余用户一次批量查会话目录，在其他节点的转发过去，不在线的直接丢弃</p>
+     *
+     * @param messages userId -> 消息
+     */
+    public void sendTransient(Map<Long, ? extends WsMessage<?>> messages) {
+        Map<Long, TextMessage> others = new HashMap<>();
+        messages.forEach((receiverId, message) -> {
+            TextMessage frame = encode(message);
+            if (frame == null) {
+                return;
+            }
+            WsOutboundSession outbound = userSessions.get(receiverId);
+            if (outbound != null && outbound.isOpen()) {
+                outbound.enqueue(WsOutboundSession.Frame.of(frame, message.getMessageId(), false, true));
+            } else {
+                others.put(receiverId, frame);
+            }
+        });
+        if (others.isEmpty()) {
+            return;
+        }
+
+        Map<Long, String> nodes = wsSessionDirectory.lookupAll(others.keySet());
+        others.forEach((receiverId, frame) -> {
+            String nodeId = nodes.get(receiverId);
+            if (nodeId != null && !nodeId.equals(wsSessionDirectory.getNodeId())) {
+                clusterMessageRouter.forward(nodeId, List.of(receiverId), null, false, frame.getPayload());
+            }
+        });
+    }
+
+    /**
+     * 序列化为 WebSocket 帧 (TextMessage 不可变，可在多个连接之间共享)
+     *
+     * @return 序列化失败返回 null
+     */
+    public TextMessage encode(WsMessage<?> message) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsBytes(message));
+        } catch (IOException e) {
+            log.error("消息序列化失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 投递其他节点转发过来的消息 (payload 已是序列化好的 JSON)
+     */
+    public void deliverLocal(WsRouteEnvelope envelope) {
+        boolean reliable = envelope.isOffline() && envelope.getMessageId() != null;
+        // 同一个信封的接收者共享一个帧
+        TextMessage frame = new TextMessage(envelope.getPayload());
+        for (Long receiverId : envelope.getUserIds()) {
+            WsOutboundSession outbound = userSessions.get(receiverId);
+            if (outbound != null && outbound.isOpen()) {
+                outbound.enqueue(WsOutboundSession.Frame.of(
+                        frame, envelope.getMessageId(), reliable, !envelope.isOffline()));
+            } else if (reliable) {
+                // 转发途中用户已下线
+                offlineMessageInbox.store(receiverId, envelope.getMessageId(), envelope.getPayload());
+            }
+        }
+    }
+
+    /**
+     * 重传未确认的消息 (由 WsDeliveryTracker 调用)
+     * 重传帧不重复登记 ACK 跟踪，也不在失败时写离线收件箱，由 WsDeliveryTracker 负责兜底
+     */
+    public void retransmit(WebSocketSession session, Long receiverId, String json) {
+        WsOutboundSession outbound = getOutbound(session);
+        if (outbound != null && outbound.isOpen()) {
+            outbound.enqueue(WsOutboundSession.Frame.of(new TextMessage(json), null, false, false));
+        }
+    }
+
+    /**
+     * 本节点各连接的发送队列统计 (按队列深度降序)
+     *
+     * @param limit 最多返回的连接数
+     */
+    public List<WsSessionStatsVO> outboundStats(int limit) {
+        return userSessions.values().stream()
+                .map(WsOutboundSession::stats)
+                .sorted(Comparator.comparingInt(WsSessionStatsVO::getDepth).reversed())
+                .limit(limit)
+                .toList();
     }
 
     // ... handleTransportError, afterConnectionClosed, getUserId, removeSession 保持不变 ...
@@ -146,10 +471,29 @@ public class TelechatWebSocketHandler implements WebSocketHandler {
         return id instanceof Long ? (Long) id : null;
     }
 
+    private WsOutboundSession getOutbound(WebSocketSession session) {
+        Object outbound = session.getAttributes().get(OUTBOUND_ATTRIBUTE);
+        return outbound instanceof WsOutboundSession ? (WsOutboundSession) outbound : null;
+    }
+
     private void removeSession(WebSocketSession session) {
+        // 这条连接上未确认的消息转入离线收件箱，重连后补发
+        wsDeliveryTracker.release(session.getId());
+        WsOutboundSession outbound = getOutbound(session);
+        if (outbound == null) {
+            return;
+        }
+        // 队列中尚未写出的业务消息同样转入离线收件箱
+        outbound.shutdown();
         Long userId = getUserId(session);
-        if (userId != null) {
-            userSessions.remove(userId);
+        // 只移除当前这条连接，用户可能已经用新连接顶替了旧连接
+        if (userId != null && userSessions.remove(userId, outbound)) {
+            wsSessionDirectory.unregister(userId);
         }
     }
+
+    @PreDestroy
+    public void shutdownOutbound() {
+        outboundExecutor.shutdown();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,275 @@
+package com.telechat.websocket;
+
+import com.telechat.properties.WebSocketProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 消息必达：客户端 ACK 跟踪与超时重传
+ * <p>每条已推送的业务消息登记为"待确认"，客户端回 ack 后移除 (同时从离线收件箱删除)；超时未确认则按指数退避重传，
+ * 超过最大次数后转入离线收件箱，等客户端重连时补发。</p>
+ * <p>超时调度使用哈希时间轮：只有一个 tick 线程，登记操作只是入队，
+ * 几十万条待确认消息也不需要为每条消息创建定时任务。</p>
+ */
+@Component
+@Slf4j
+public class WsDeliveryTracker {
+
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    @Autowired
+    private TelechatWebSocketHandler webSocketHandler;
+
+    @Autowired
+    private OfflineMessageInbox offlineMessageInbox;
+
+    // sessionId -> (messageId -> 待确认消息)
+    private final Map<String, Map<Long, Pending>> pendingBySession = new ConcurrentHashMap<>();
+
+    // 新登记/待重新调度的消息，由 tick 线程搬进时间轮 (时间轮本身只被 tick 线程访问)
+    private final Queue<Pending> inbound = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong ackedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    private ArrayDeque<Pending>[] wheel;
+    private int mask;
+    private long tickMs;
+    private long startNanos;
+    private long currentTick;
+
+    private Thread tickThread;
+    private volatile boolean running;
+
+    /**
+     * 待确认消息
+     */
+    private static final class Pending {
+        final WebSocketSession session;
+        final Long userId;
+        final long messageId;
+        final String payload;
+        // 已重传次数
+        int attempts;
+        // 到期的绝对 tick
+        long deadlineTick;
+        // 还需要转几圈
+        long rounds;
+        // 已确认 / 已过期 / 会话已关闭
+        volatile boolean done;
+
+        Pending(WebSocketSession session, Long userId, long messageId, String payload) {
+            this.session = session;
+            this.userId = userId;
+            this.messageId = messageId;
+            this.payload = payload;
+        }
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void start() {
+        // 槽位数取 2 的幂，方便用位运算定位
+        int size = Integer.highestOneBit(Math.max(16, webSocketProperties.getAckWheelSize() - 1) << 1);
+        wheel = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        mask = size - 1;
+        tickMs = webSocketProperties.getAckTickMs();
+        startNanos = System.nanoTime();
+        running = true;
+        tickThread = new Thread(this::tickLoop, "ws-ack-wheel");
+        tickThread.setDaemon(true);
+        tickThread.start();
+    }
+
+    /**
+     * 登记一条已推送、等待客户端确认的消息
+     *
+     * @param session   会话
+     * @param userId    接收者ID
+     * @param messageId 消息ID
+     * @param payload   WsMessage JSON (用于重传)
+     */
+    public void track(WebSocketSession session, Long userId, long messageId, String payload) {
+        Pending pending = new Pending(session, userId, messageId, payload);
+        Pending previous = pendingBySession
+                .computeIfAbsent(session.getId(), k -> new ConcurrentHashMap<>())
+                .put(messageId, pending);
+        if (previous != null) {
+            // 同一条消息重复登记 (例如离线补发)，以新的为准
+            previous.done = true;
+        } else {
+            pendingCount.incrementAndGet();
+        }
+        pending.deadlineTick = elapsedTicks() + delayTicks(0);
+        inbound.add(pending);
+    }
+
+    /**
+     * 客户端确认收到消息
+     * <p>消息可能来自离线补发，也可能已经超时转入离线收件箱，确认后一律按ID从收件箱删除</p>
+     *
+     * @param sessionId  会话ID
+     * @param userId     接收者ID
+     * @param messageIds 已确认的消息ID
+     */
+    public void ack(String sessionId, Long userId, Collection<Long> messageIds) {
+        if (userId != null) {
+            offlineMessageInbox.remove(userId, messageIds);
+        }
+        Map<Long, Pending> pendingMap = pendingBySession.get(sessionId);
+        if (pendingMap == null) {
+            return;
+        }
+        for (Long messageId : messageIds) {
+            Pending pending = pendingMap.remove(messageId);
+            if (pending != null) {
+                pending.done = true;
+                pendingCount.decrementAndGet();
+                ackedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 会话关闭：未确认的消息全部转入离线收件箱
+     *
+     * @param sessionId 会话ID
+     */
+    public void release(String sessionId) {
+        Map<Long, Pending> pendingMap = pendingBySession.remove(sessionId);
+        if (pendingMap == null) {
+            return;
+        }
+        for (Pending pending : pendingMap.values()) {
+            pending.done = true;
+            pendingCount.decrementAndGet();
+            offlineMessageInbox.store(pending.userId, pending.messageId, pending.payload);
+        }
+    }
+
+    /**
+     * 投递统计
+     *
+     * @return pending: 当前待确认, acked: 累计确认, retried: 累计重传, expired: 累计过期转离线
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("pending", pendingCount.get());
+        stats.put("acked", ackedCount.get());
+        stats.put("retried", retriedCount.get());
+        stats.put("expired", expiredCount.get());
+        return stats;
+    }
+
+    private void tickLoop() {
+        while (running) {
+            long sleepNanos = startNanos + TimeUnit.MILLISECONDS.toNanos((currentTick + 1) * tickMs) - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            try {
+                transferInbound();
+                expireSlot(wheel[(int) (currentTick & mask)]);
+            } catch (Exception e) {
+                log.error("ACK 时间轮处理异常", e);
+            }
+            currentTick++;
+        }
+    }
+
+    /**
+     * 把新登记的消息放进对应槽位
+     */
+    private void transferInbound() {
+        Pending pending;
+        while ((pending = inbound.poll()) != null) {
+            if (pending.done) {
+                continue;
+            }
+            // 已经过期的放到当前槽位，马上处理
+            long target = Math.max(pending.deadlineTick, currentTick);
+            pending.rounds = (target - currentTick) / wheel.length;
+            wheel[(int) (target & mask)].add(pending);
+        }
+    }
+
+    private void expireSlot(ArrayDeque<Pending> slot) {
+        int size = slot.size();
+        for (int i = 0; i < size; i++) {
+            Pending pending = slot.poll();
+            if (pending == null || pending.done) {
+                continue;
+            }
+            if (pending.rounds > 0) {
+                pending.rounds--;
+                slot.add(pending);
+                continue;
+            }
+            onTimeout(pending);
+        }
+    }
+
+    private void onTimeout(Pending pending) {
+        // 超过最大重传次数或会话已断开：转入离线收件箱
+        if (pending.attempts >= webSocketProperties.getAckMaxRetries() || !pending.session.isOpen()) {
+            Map<Long, Pending> pendingMap = pendingBySession.get(pending.session.getId());
+            if (pendingMap != null && pendingMap.remove(pending.messageId, pending)) {
+                pending.done = true;
+                pendingCount.decrementAndGet();
+                expiredCount.incrementAndGet();
+                offlineMessageInbox.store(pending.userId, pending.messageId, pending.payload);
+                // 会话关闭后才登记进来的消息，清理掉残留的空表
+                if (pendingMap.isEmpty() && !pending.session.isOpen()) {
+                    pendingBySession.remove(pending.session.getId(), pendingMap);
+                }
+            }
+            return;
+        }
+
+        pending.attempts++;
+        retriedCount.incrementAndGet();
+        webSocketHandler.retransmit(pending.session, pending.userId, pending.payload);
+        pending.deadlineTick = currentTick + delayTicks(pending.attempts);
+        inbound.add(pending);
+    }
+
+    /**
+     * 第 n 次重传前的等待 tick 数：初始超时 * 2^n，不超过最大退避
+     */
+    private long delayTicks(int attempts) {
+        long delayMs = Math.min(
+                webSocketProperties.getAckTimeoutMs() << Math.min(attempts, 20),
+                webSocketProperties.getAckMaxBackoffMs());
+        return Math.max(1, (delayMs + tickMs - 1) / tickMs);
+    }
+
+    private long elapsedTicks() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) / tickMs;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        tickThread.interrupt();
+    }
+}
@@ -0,0 +1,291 @@
+package com.telechat.websocket;
+
+import com.telechat.pojo.enums.WsOverflowPolicy;
+import com.telechat.pojo.vo.WsSessionStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个 WebSocket 连接的发送队列
+ * <p>调用方只负责入队，同一时刻只有一个写任务 (虚拟线程) 按顺序把帧写到连接上。
+ * 慢客户端只会堵住自己的队列，不再阻塞事务回调或其他发送线程。
+ * 队列有界，满了以后按 {@link WsOverflowPolicy} 处理。</p>
+ */
+@Slf4j
+public class WsOutboundSession {
+
+    /**
+     * 待发送的帧
+     *
+     * @param message       已编码的消息
+     * @param messageId     消息ID (可为 null)
+     * @param reliable      业务消息：写出后等待 ACK，写不出去时转入离线收件箱
+     * @param droppable     瞬时消息：队列满时优先丢弃
+     * @param enqueuedNanos 入队时间
+     */
+    public record Frame(TextMessage message, Long messageId, boolean reliable, boolean droppable, long enqueuedNanos) {
+
+        public static Frame of(TextMessage message, Long messageId, boolean reliable, boolean droppable) {
+            return new Frame(message, messageId, reliable, droppable, System.nanoTime());
+        }
+    }
+
+    /**
+     * 写出结果回调
+     */
+    public interface Listener {
+
+        /**
+         * 帧已写出
+         */
+        void onSent(WsOutboundSession outbound, Frame frame);
+
+        /**
+         * 帧未能写出 (被丢弃、连接已关闭或写失败)
+         */
+        void onUnsent(WsOutboundSession outbound, Frame frame);
+
+        /**
+         * 连接写失败，需要清理
+         */
+        void onBroken(WsOutboundSession outbound);
+    }
+
+    private final WebSocketSession session;
+    private final Long userId;
+    private final int capacity;
+    private final WsOverflowPolicy policy;
+    private final Executor executor;
+    private final Listener listener;
+
+    // 队列只在锁内访问，锁内不做 IO
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    // 是否已有写任务在运行
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private int maxDepth;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+
+    public WsOutboundSession(WebSocketSession session, Long userId, int capacity, WsOverflowPolicy policy,
+                             Executor executor, Listener listener) {
+        this.session = session;
+        this.userId = userId;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.executor = executor;
+        this.listener = listener;
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public boolean isOpen() {
+        return !closed && session.isOpen();
+    }
+
+    /**
+     * 队列剩余容量
+     */
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入队，由写任务异步写出
+     *
+     * @param frame 待发送的帧
+     * @return 是否入队成功；失败的帧已经通过 {@link Listener#onUnsent} 回调
+     */
+    public boolean enqueue(Frame frame) {
+        Frame evicted = null;
+        boolean accepted = false;
+        boolean overflowClose = false;
+
+        lock.lock();
+        try {
+            if (closed) {
+                // 走到下面的 onUnsent
+            } else if (queue.size() < capacity) {
+                queue.add(frame);
+                accepted = true;
+            } else if (policy == WsOverflowPolicy.CLOSE) {
+                overflowClose = true;
+            } else if (frame.droppable()) {
+                // 新来的就是瞬时消息，直接丢
+            } else if ((evicted = evictDroppable()) != null) {
+                queue.add(frame);
+                accepted = true;
+            } else if (policy == WsOverflowPolicy.DROP_TRANSIENT_THEN_CLOSE) {
+                overflowClose = true;
+            }
+            if (accepted) {
+                maxDepth = Math.max(maxDepth, queue.size());
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (evicted != null) {
+            dropped.incrementAndGet();
+            listener.onUnsent(this, evicted);
+        }
+        if (accepted) {
+            enqueued.incrementAndGet();
+            scheduleDrain();
+            return true;
+        }
+
+        dropped.incrementAndGet();
+        listener.onUnsent(this, frame);
+        if (overflowClose) {
+            log.warn("用户 [{}] 发送队列已满 ({})，断开连接", userId, capacity);
+            shutdown();
+            executor.execute(() -> closeQuietly(CloseStatus.SESSION_NOT_RELIABLE));
+        }
+        return false;
+    }
+
+    /**
+     * 关闭队列：不再接收新帧，尚未写出的帧全部回调 onUnsent
+     */
+    public void shutdown() {
+        List<Frame> remaining;
+        lock.lock();
+        try {
+            closed = true;
+            remaining = new ArrayList<>(queue);
+            queue.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Frame frame : remaining) {
+            listener.onUnsent(this, frame);
+        }
+    }
+
+    /**
+     * 当前发送队列统计
+     */
+    public WsSessionStatsVO stats() {
+        int depth;
+        long headAgeNanos = 0;
+        int max;
+        lock.lock();
+        try {
+            depth = queue.size();
+            Frame head = queue.peek();
+            if (head != null) {
+                headAgeNanos = System.nanoTime() - head.enqueuedNanos();
+            }
+            max = maxDepth;
+        } finally {
+            lock.unlock();
+        }
+        long sentCount = sent.get();
+        return WsSessionStatsVO.builder()
+                .userId(userId)
+                .sessionId(session.getId())
+                .depth(depth)
+                .maxDepth(max)
+                .enqueued(enqueued.get())
+                .sent(sentCount)
+                .dropped(dropped.get())
+                .avgQueueMs(sentCount == 0 ? 0 : totalQueueNanos.get() / (double) sentCount / 1_000_000)
+                .maxQueueMs(maxQueueNanos.get() / 1_000_000.0)
+                .headAgeMs(headAgeNanos / 1_000_000.0)
+                .build();
+    }
+
+    /**
+     * 移除队列中最早的一条瞬时消息 (调用方持有锁)
+     */
+    private Frame evictDroppable() {
+        Iterator<Frame> it = queue.iterator();
+        while (it.hasNext()) {
+            Frame queued = it.next();
+            if (queued.droppable()) {
+                it.remove();
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Frame frame;
+            while ((frame = poll()) != null) {
+                long queueNanos = System.nanoTime() - frame.enqueuedNanos();
+                totalQueueNanos.addAndGet(queueNanos);
+                maxQueueNanos.accumulateAndGet(queueNanos, Math::max);
+                try {
+                    session.sendMessage(frame.message());
+                } catch (Exception e) {
+                    log.error("发送消息给用户 [{}] 失败: {}", userId, e.getMessage());
+                    listener.onUnsent(this, frame);
+                    shutdown();
+                    listener.onBroken(this);
+                    return;
+                }
+                sent.incrementAndGet();
+                listener.onSent(this, frame);
+            }
+        } finally {
+            draining.set(false);
+        }
+        // 释放标记前可能有新帧入队但没能启动写任务
+        if (!closed && remainingCapacity() < capacity) {
+            scheduleDrain();
+        }
+    }
+
+    private Frame poll() {
+        lock.lock();
+        try {
+            return closed ? null : queue.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (Exception e) {
+            log.debug("关闭连接失败: {}", e.getMessage());
+        }
+    }
+}
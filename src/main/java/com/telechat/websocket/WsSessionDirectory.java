@@ -0,0 +1,195 @@
+package com.telechat.websocket;
+
+import com.telechat.constant.RedisConstant;
+import com.telechat.properties.WebSocketProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket 会话目录
+ * <p>记录 userId -> nodeId，用于判断用户连在哪个节点上。
+ * 每个 key 带过期时间，由本节点定时续期，节点宕机后自动失效。</p>
+ */
+@Component
+@Slf4j
+public class WsSessionDirectory {
+
+    // 只删除属于自己节点的登记，避免误删用户在其他节点上的新连接
+    private static final DefaultRedisScript<Long> UNREGISTER_SCRIPT;
+
+    static {
+        UNREGISTER_SCRIPT = new DefaultRedisScript<>();
+        UNREGISTER_SCRIPT.setScriptText("if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end");
+        UNREGISTER_SCRIPT.setResultType(Long.class);
+    }
+
+    // 续期：key 不存在或仍属于本节点时才写回，不覆盖其他节点的新登记
+    private static final DefaultRedisScript<Long> REFRESH_SCRIPT;
+
+    static {
+        REFRESH_SCRIPT = new DefaultRedisScript<>();
+        REFRESH_SCRIPT.setScriptText(
+                "for i, key in ipairs(KEYS) do " +
+                "  local v = redis.call('get', key) " +
+                "  if v == false or v == ARGV[1] then redis.call('set', key, ARGV[1], 'EX', ARGV[2]) end " +
+                "end " +
+                "return #KEYS");
+        REFRESH_SCRIPT.setResultType(Long.class);
+    }
+
+    // 批量清理失效节点的登记：只删除仍指向该节点的 key
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT;
+
+    static {
+        EVICT_SCRIPT = new DefaultRedisScript<>();
+        EVICT_SCRIPT.setScriptText(
+                "local n = 0 " +
+                "for i, key in ipairs(KEYS) do " +
+                "  if redis.call('get', key) == ARGV[1] then n = n + redis.call('del', key) end " +
+                "end " +
+                "return n");
+        EVICT_SCRIPT.setResultType(Long.class);
+    }
+
+    // 单次续期脚本处理的 key 数量上限
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    // 本节点上登记过的用户 (用于定时续期)
+    private final Set<Long> localUsers = ConcurrentHashMap.newKeySet();
+
+    private String nodeId;
+
+    @PostConstruct
+    public void init() {
+        String configured = webSocketProperties.getNodeId();
+        nodeId = (configured == null || configured.isBlank())
+                ? UUID.randomUUID().toString().substring(0, 8)
+                : configured;
+        log.info("WebSocket 节点ID: {}", nodeId);
+    }
+
+    /**
+     * 当前节点ID
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 登记用户连接在本节点
+     *
+     * @param userId 用户ID
+     */
+    public void register(Long userId) {
+        localUsers.add(userId);
+        stringRedisTemplate.opsForValue().set(
+                RedisConstant.WS_SESSION + userId,
+                nodeId,
+                webSocketProperties.getSessionTtlSeconds(),
+                TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * 注销用户在本节点的登记
+     *
+     * @param userId 用户ID
+     */
+    public void unregister(Long userId) {
+        localUsers.remove(userId);
+        stringRedisTemplate.execute(
+                UNREGISTER_SCRIPT,
+                Collections.singletonList(RedisConstant.WS_SESSION + userId),
+                nodeId
+        );
+    }
+
+    /**
+     * 清理指向失效节点的登记 (该节点已没有订阅者，登记要等过期时间到了才会消失)
+     *
+     * @param userIds     用户ID
+     * @param staleNodeId 失效的节点ID
+     */
+    public void evict(Collection<Long> userIds, String staleNodeId) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = userIds.stream()
+                .map(id -> RedisConstant.WS_SESSION + id)
+                .toList();
+        stringRedisTemplate.execute(EVICT_SCRIPT, keys, staleNodeId);
+    }
+
+    /**
+     * 查询用户所在节点
+     *
+     * @param userId 用户ID
+     * @return nodeId，不在线返回 null
+     */
+    public String lookup(Long userId) {
+        return stringRedisTemplate.opsForValue().get(RedisConstant.WS_SESSION + userId);
+    }
+
+    /**
+     * 批量查询用户所在节点 (一次 MGET)
+     *
+     * @param userIds 用户ID集合
+     * @return Map<userId, nodeId>，不在线的用户不包含在结果中
+     */
+    public Map<Long, String> lookupAll(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        List<String> keys = ids.stream()
+                .map(id -> RedisConstant.WS_SESSION + id)
+                .toList();
+        List<String> nodes = stringRedisTemplate.opsForValue().multiGet(keys);
+
+        Map<Long, String> result = new HashMap<>();
+        if (nodes == null) {
+            return result;
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            String node = nodes.get(i);
+            if (node != null) {
+                result.put(ids.get(i), node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 定时续期本节点所有在线用户的登记 (每 1000 个用户一次脚本调用)
+     * 续期间隔 30 秒，session-ttl-seconds 需明显大于该值
+     */
+    @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public void refresh() {
+        if (localUsers.isEmpty()) {
+            return;
+        }
+        String ttl = String.valueOf(webSocketProperties.getSessionTtlSeconds());
+        List<String> keys = localUsers.stream()
+                .map(id -> RedisConstant.WS_SESSION + id)
+                .toList();
+        for (int from = 0; from < keys.size(); from += REFRESH_CHUNK_SIZE) {
+            List<String> chunk = keys.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, keys.size()));
+            stringRedisTemplate.execute(REFRESH_SCRIPT, chunk, nodeId, ttl);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.telechat;
+
+import com.telechat.config.RedisConfig;
+import com.telechat.pojo.cache.ChatMessageCache;
+import com.telechat.pojo.cache.ContactsCache;
+import com.telechat.pojo.cache.UserInfoCache;
+import com.telechat.properties.CacheProperties;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 缓存值序列化对比：默认类型的 JSON  vs  紧凑二进制
+ * <p>不需要 Redis，直接执行 main。输出每个值的字节数以及编码/解码的 ns/op，
+ * 序列化器取自 RedisConfig，与线上配置一致。</p>
+ */
+public class CacheSerializerBenchmark {
+
+    private static final int WARMUP_OPS = 200_000;
+    private static final int MEASURE_OPS = 1_000_000;
+
+    // 防止 JIT 把结果当成死代码消除
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        RedisSerializer<Object> json = valueSerializer("json");
+        RedisSerializer<Object> compact = valueSerializer("compact");
+
+        UserInfoCache userInfo = UserInfoCache.builder()
+                .userId(1876543210987654321L)
+                .username("telechat_user")
+                .nickname("那不勒斯的老大")
+                .avatar("https://telechat.oss-cn-hangzhou.aliyuncs.com/avatar/1876543210987654321.png")
+                .gender((byte) 1)
+                .bio("hello")
+                .build();
+        List<ContactsCache> contacts = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            contacts.add(ContactsCache.builder().contactId(i).friendId(1876543210987654321L + i).remark(i % 3 == 0 ? "同事" : null).build());
+        }
+        ChatMessageCache message = ChatMessageCache.builder()
+                .messageId(1876543210987654321L)
+                .senderId(1876543210987654000L)
+                .content("今晚一起吃饭吗？")
+                .messageType("TEXT")
+                .createTime(LocalDateTime.now())
+                .build();
+
+        System.out.printf("%-22s %-8s %8s %14s %14s%n", "value", "format", "bytes", "encode(ns/op)", "decode(ns/op)");
+        run("UserInfoCache", userInfo, json, compact);
+        run("List<ContactsCache>x100", contacts, json, compact);
+        run("ChatMessageCache", message, json, compact);
+    }
+
+    private static RedisSerializer<Object> valueSerializer(String type) {
+        CacheProperties properties = new CacheProperties();
+        properties.setValueSerializer(type);
+        // 只用来构造 RedisTemplate，不会建立连接
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) new RedisConfig()
+                .redisTemplate(new LettuceConnectionFactory(), properties)
+                .getValueSerializer();
+        return serializer;
+    }
+
+    private static void run(String name, Object value, RedisSerializer<Object> json, RedisSerializer<Object> compact) {
+        for (RedisSerializer<Object> serializer : List.of(json, compact)) {
+            byte[] bytes = serializer.serialize(value);
+            if (!value.equals(serializer.deserialize(bytes))) {
+                throw new IllegalStateException(name + " 序列化前后不一致");
+            }
+            int ops = value instanceof List<?> ? MEASURE_OPS / 50 : MEASURE_OPS;
+            double encodeNs = measure(() -> blackhole += serializer.serialize(value).length, ops);
+            double decodeNs = measure(() -> blackhole += serializer.deserialize(bytes).hashCode(), ops);
+            System.out.printf("%-22s %-8s %8d %14.1f %14.1f%n", name, serializer == json ? "json" : "compact",
+                    bytes.length, encodeNs, decodeNs);
+        }
+    }
+
+    private static double measure(Runnable op, int ops) {
+        for (int i = 0; i < Math.min(WARMUP_OPS, ops); i++) {
+            op.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            op.run();
+        }
+        return (double) (System.nanoTime() - start) / ops;
+    }
+}
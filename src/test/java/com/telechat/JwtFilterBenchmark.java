@@ -0,0 +1,211 @@
+package com.telechat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import com.telechat.security.JwtAuthenticationFilter;
+import com.telechat.security.JwtTokenProvider;
+import com.telechat.security.TokenRevocationRegistry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JWT 认证过滤器路径对比
+ * <p>不需要 Redis 和 Spring 容器，直接执行 main，分两部分输出：</p>
+ * <p>先输出改造前的 token (userId/username/role，30 天) 与现在的访问令牌 (只有 sub/jti/iat/exp) 的长度，即每个请求头多带的字节数。</p>
+ * <p>1. 解析：legacy 为改造前的实现 (改造前的 token，validateToken + getUserIdFromToken + getUsernameFromToken，各自新建密钥与解析器)，
+ * cold 为每次都是新 token (缓存不命中，只验签一次)，warm 为同一 token 重复请求 (命中缓存)。</p>
+ * <p>2. 整个过滤器的吞吐 (MockHttpServletRequest，日志级别 INFO，写入临时文件模拟线上的日志开销)：
+ * legacyFilter 为改造前的过滤器 (每个请求 INFO 打印 token/请求头/userId，构建 WebAuthenticationDetails)，
+ * filter 为现在的过滤器 (吊销检查只查本地布隆过滤器，未连接 Redis)，excluded 为公开路径 (直接跳过过滤器)。</p>
+ */
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "telechat-benchmark-secret-telechat-benchmark-secret-telechat-benchmark-secret!!";
+    private static final String[] EXCLUDE_URLS = {"/doc.html", "/v3/api-docs/**", "/user/sendVerifyCode", "/user/login", "/ws/**"};
+    private static final int WARMUP_OPS = 20_000;
+    private static final int MEASURE_OPS = 100_000;
+
+    // 防止 JIT 把结果当成死代码消除
+    private static long blackhole;
+
+    public static void main(String[] args) throws Exception {
+        Logger root = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.WARN);
+
+        JwtTokenProvider provider = new JwtTokenProvider();
+        provider.setJwtSecret(SECRET);
+        provider.setJwtExpiration(2_592_000_000L);
+        provider.setAccessExpiration(900_000L);
+        provider.setClaimsCacheSize(MEASURE_OPS * 2L);
+        provider.init();
+
+        String legacyToken = legacyToken(1876543210987654321L, "telechat_user", "USER");
+        String token = provider.generateAccessToken(1876543210987654321L);
+        String[] freshTokens = new String[WARMUP_OPS + MEASURE_OPS];
+        for (int i = 0; i < freshTokens.length; i++) {
+            freshTokens[i] = provider.generateAccessToken((long) i);
+        }
+        System.out.printf("token 长度: legacy %d bytes, access %d bytes%n", legacyToken.length(), token.length());
+
+        // 1. 解析
+        System.out.printf("%-14s %14s %14s%n", "path", "ns/op", "ops/s");
+        print("legacy", measure(i -> blackhole += legacyFilterPath(legacyToken)));
+        print("cold", measure(i -> {
+            Claims claims = provider.parseClaims(freshTokens[i]);
+            blackhole += JwtTokenProvider.getUserId(claims);
+        }));
+        print("warm", measure(i -> {
+            Claims claims = provider.parseClaims(token);
+            blackhole += JwtTokenProvider.getUserId(claims);
+        }));
+
+        // 2. 整个过滤器 (INFO 日志写入临时文件)
+        File logFile = File.createTempFile("jwt-filter-benchmark", ".log");
+        logFile.deleteOnExit();
+        logToFile(root, logFile);
+        print("legacyFilter", measure(i -> runFilter(new LegacyJwtAuthenticationFilter(provider), "/contact/list", legacyToken)));
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(provider, new TokenRevocationRegistry(), EXCLUDE_URLS);
+        print("filter", measure(i -> runFilter(filter, "/contact/list", token)));
+        print("excluded", measure(i -> runFilter(filter, "/user/login", null)));
+        System.out.printf("日志文件: %s (%d bytes)%n", logFile, logFile.length());
+    }
+
+    private static void runFilter(OncePerRequestFilter filter, String uri, String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setServletPath(uri);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            blackhole += (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * 改造前签发的 token (claims 中带昵称与角色，有效期 30 天)
+     */
+    private static String legacyToken(Long userId, String username, String role) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
+        claims.put("username", username);
+        claims.put("role", role);
+        return Jwts.builder()
+                .claims(claims)
+                .subject(username)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 2_592_000_000L))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), Jwts.SIG.HS512)
+                .compact();
+    }
+
+    /**
+     * 改造前过滤器中的三次解析 (每次都重新构建密钥和解析器)
+     */
+    private static long legacyFilterPath(String token) {
+        Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseSignedClaims(token);
+        Claims claims = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseSignedClaims(token).getPayload();
+        long userId = Long.parseLong(claims.get("userId").toString());
+        String username = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseSignedClaims(token).getPayload().getSubject();
+        return userId + username.length();
+    }
+
+    /**
+     * 改造前的过滤器 (日志与认证对象的构建方式保持原样，解析换成了缓存后的入口，只比较过滤器本身的开销)
+     */
+    @Slf4j
+    private static class LegacyJwtAuthenticationFilter extends OncePerRequestFilter {
+
+        private final JwtTokenProvider jwtTokenProvider;
+
+        LegacyJwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider) {
+            this.jwtTokenProvider = jwtTokenProvider;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            String bearerToken = request.getHeader("Authorization");
+            log.info("Authorization header: {}", bearerToken);
+            String jwt = bearerToken != null && bearerToken.startsWith("Bearer ") ? bearerToken.substring(7) : null;
+            log.info("jwt{}", jwt);
+            Claims claims = jwt == null ? null : jwtTokenProvider.parseClaims(jwt);
+            if (claims != null) {
+                Long userId = JwtTokenProvider.getUserId(claims);
+                log.info("userId{}", userId);
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(userId, null, null);
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static void logToFile(Logger root, File file) {
+        LoggerContext context = root.getLoggerContext();
+        root.detachAndStopAllAppenders();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %-5level [%thread] %logger{36} - %msg%n");
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(file.getAbsolutePath());
+        appender.setEncoder(encoder);
+        appender.start();
+        root.addAppender(appender);
+        root.setLevel(Level.INFO);
+    }
+
+    private static void print(String name, double nsPerOp) {
+        System.out.printf("%-14s %14.1f %14.0f%n", name, nsPerOp, 1e9 / nsPerOp);
+    }
+
+    private interface Op {
+        void run(int i);
+    }
+
+    private static double measure(Op op) {
+        // 预热与测量使用不同的下标区间，cold 路径不会命中预热写入的缓存
+        for (int i = 0; i < WARMUP_OPS; i++) {
+            op.run(MEASURE_OPS + i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_OPS; i++) {
+            op.run(i);
+        }
+        return (double) (System.nanoTime() - start) / MEASURE_OPS;
+    }
+}
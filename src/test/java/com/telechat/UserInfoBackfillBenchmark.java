@@ -0,0 +1,101 @@
+package com.telechat;
+
+import com.telechat.config.RedisConfig;
+import com.telechat.pojo.cache.UserInfoCache;
+import com.telechat.properties.CacheProperties;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户信息批量回写对比：multiSet + 逐个 expire  vs  一次 Pipeline 的 SET EX
+ * <p>需要一个本地 Redis，运行方式：直接执行 main，参数可选 [host] [port] [database]。
+ * 会写入并删除 bench:user:info:* 前缀的 key。</p>
+ */
+public class UserInfoBackfillBenchmark {
+
+    private static final String KEY_PREFIX = "bench:user:info:";
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURE_ROUNDS = 50;
+
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 6379;
+        int database = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        // 1. 与线上相同的序列化配置
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        factory.setDatabase(database);
+        factory.afterPropertiesSet();
+        RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(factory, new CacheProperties());
+
+        System.out.printf("%-6s %-22s %10s %12s %12s%n", "ids", "strategy", "roundTrips", "avg(ms)", "p99(ms)");
+        for (int size : new int[]{10, 100, 1000}) {
+            Map<String, Object> values = buildValues(size);
+
+            // 2. 旧实现：1 次 MSET + N 次 EXPIRE
+            double[] before = measure(() -> {
+                redisTemplate.opsForValue().multiSet(values);
+                values.keySet().forEach(key -> redisTemplate.expire(key, 30, TimeUnit.MINUTES));
+            });
+            // 3. 新实现：N 条 SET EX 放在一个 Pipeline 里
+            double[] after = measure(() -> redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    values.forEach((key, value) -> operations.opsForValue().set(
+                            key, value, 1800 + random.nextLong(181), TimeUnit.SECONDS));
+                    return null;
+                }
+            }));
+
+            System.out.printf("%-6d %-22s %10d %12.3f %12.3f%n", size, "multiSet+expire", size + 1, before[0], before[1]);
+            System.out.printf("%-6d %-22s %10d %12.3f %12.3f%n", size, "pipelined SET EX", 1, after[0], after[1]);
+            redisTemplate.delete(values.keySet());
+        }
+        factory.destroy();
+    }
+
+    private static Map<String, Object> buildValues(int size) {
+        Map<String, Object> values = new HashMap<>();
+        for (long i = 1; i <= size; i++) {
+            values.put(KEY_PREFIX + i, UserInfoCache.builder()
+                    .userId(i)
+                    .username("user" + i)
+                    .nickname("昵称" + i)
+                    .avatar("https://example.com/avatar/" + i + ".png")
+                    .bio("bench")
+                    .build());
+        }
+        return values;
+    }
+
+    /**
+     * @return [平均耗时, P99 耗时] (毫秒)
+     */
+    private static double[] measure(Runnable task) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            task.run();
+        }
+        long[] costs = new long[MEASURE_ROUNDS];
+        long total = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            costs[i] = System.nanoTime() - start;
+            total += costs[i];
+        }
+        Arrays.sort(costs);
+        int p99 = Math.min(MEASURE_ROUNDS - 1, (int) Math.ceil(MEASURE_ROUNDS * 0.99) - 1);
+        return new double[]{total / 1e6 / MEASURE_ROUNDS, costs[p99] / 1e6};
+    }
+}
@@ -0,0 +1,86 @@
+package com.telechat.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 布隆过滤器：不会漏判，实测误判率不超过配置值太多
+ */
+public class BloomFilterTest {
+
+    private static final int INSERTIONS = 100_000;
+    private static final int PROBES = 200_000;
+
+    @Test
+    void insertedValuesAreNeverReportedAbsent() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.001);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put("jti-" + i);
+        }
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(filter.mightContain("jti-" + i), "漏判: jti-" + i);
+        }
+    }
+
+    @Test
+    void concurrentPutsLoseNoBits() throws Exception {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.001);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                // 各线程交错写入，同一个 long 字会被多个线程同时置位
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < INSERTIONS; i += threads) {
+                        filter.put("jti-" + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(filter.mightContain("jti-" + i), "漏判: jti-" + i);
+        }
+    }
+
+    @Test
+    void measuredFalsePositiveRateMatchesConfiguredSize() {
+        // 吊销列表使用的误判率，以及一个更宽松的配置
+        for (double fpp : new double[]{0.001, 0.01}) {
+            BloomFilter filter = new BloomFilter(INSERTIONS, fpp);
+            for (int i = 0; i < INSERTIONS; i++) {
+                filter.put("jti-" + i);
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < PROBES; i++) {
+                if (filter.mightContain("probe-" + i)) {
+                    falsePositives++;
+                }
+            }
+            double measured = (double) falsePositives / PROBES;
+            // 按预计元素个数装满时，实测值应接近理论值；留出 2 倍的余量
+            assertTrue(measured <= fpp * 2, "fpp=" + fpp + " 实测误判率 " + measured);
+        }
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(0, 0.001);
+        assertFalse(filter.mightContain(""));
+        assertFalse(filter.mightContain("jti-0"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.telechat.util;
+
+import com.telechat.config.RedisConfig;
+import com.telechat.pojo.cache.ChatMessageCache;
+import com.telechat.pojo.cache.ContactApplyCache;
+import com.telechat.pojo.cache.ContactsCache;
+import com.telechat.pojo.cache.ConversationInfoCache;
+import com.telechat.pojo.cache.ConversationUserCache;
+import com.telechat.pojo.cache.UserInfoCache;
+import com.telechat.pojo.enums.ConversationStatus;
+import com.telechat.pojo.enums.ConversationType;
+import com.telechat.properties.CacheProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 紧凑二进制序列化：各缓存类型往返、可空字段位图、List，以及与 JSON 数据的互相读取
+ * <p>序列化器取自 RedisConfig，与线上配置一致</p>
+ */
+public class CompactCacheRedisSerializerTest {
+
+    private static final byte MAGIC = (byte) 0xC7;
+
+    private final RedisSerializer<Object> compact = valueSerializer("compact");
+    private final RedisSerializer<Object> json = valueSerializer("json");
+
+    private static RedisSerializer<Object> valueSerializer(String type) {
+        CacheProperties properties = new CacheProperties();
+        properties.setValueSerializer(type);
+        // 只用来构造 RedisTemplate，不会建立连接
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) new RedisConfig()
+                .redisTemplate(new LettuceConnectionFactory(), properties)
+                .getValueSerializer();
+        return serializer;
+    }
+
+    private Object roundTrip(Object value) {
+        byte[] bytes = compact.serialize(value);
+        assertEquals(MAGIC, bytes[0]);
+        return compact.deserialize(bytes);
+    }
+
+    @Test
+    void everyCacheTypeRoundTripsWithAllFieldsSet() {
+        LocalDateTime time = LocalDateTime.of(2026, 2, 5, 21, 25, 30, 123_456_789);
+        List<Object> values = List.of(
+                UserInfoCache.builder().userId(1876543210987654321L).username("telechat_user").nickname("那不勒斯的老大")
+                        .avatar("https://example.com/a.png").gender((byte) 2).bio("hello").build(),
+                ContactsCache.builder().contactId(1L).friendId(2L).remark("同事").build(),
+                ContactApplyCache.builder().contactApplyId(3L).userId(4L).status("PENDING").createdTime(time).build(),
+                ConversationInfoCache.builder().conversationId(5L).type(ConversationType.values()[0]).title("群聊")
+                        .avatar("a.png").ownerId(6L).status(ConversationStatus.values()[0]).build(),
+                ConversationUserCache.builder().userId(7L).role("OWNER").muted(true).build(),
+                ChatMessageCache.builder().messageId(8L).senderId(-9L).content("今晚一起吃饭吗？").messageType("TEXT")
+                        .createTime(time).build()
+        );
+        for (Object value : values) {
+            assertEquals(value, roundTrip(value), value.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void nullFieldsRoundTripThroughNullMask() {
+        List<Object> values = List.of(
+                new UserInfoCache(),
+                new ContactsCache(),
+                new ContactApplyCache(),
+                new ConversationInfoCache(),
+                new ConversationUserCache(),
+                new ChatMessageCache(),
+                // 只有部分字段为空
+                ChatMessageCache.builder().messageId(1L).content("").createTime(LocalDateTime.of(1969, 12, 31, 23, 59)).build(),
+                UserInfoCache.builder().userId(-1L).build()
+        );
+        for (Object value : values) {
+            assertEquals(value, roundTrip(value), value.toString());
+        }
+    }
+
+    @Test
+    void listsOfOneCacheTypeRoundTrip() {
+        List<ContactsCache> contacts = new ArrayList<>();
+        for (long i = 1; i <= 300; i++) {
+            contacts.add(ContactsCache.builder().contactId(i).friendId(Long.MAX_VALUE - i).remark(i % 3 == 0 ? "同事" : null).build());
+        }
+        assertEquals(contacts, roundTrip(contacts));
+        assertEquals(List.of(new ChatMessageCache()), roundTrip(List.of(new ChatMessageCache())));
+    }
+
+    @Test
+    void otherValuesStayJson() {
+        List<Object> values = new ArrayList<>();
+        values.add("text");
+        values.add(123L);
+        values.add(List.of());
+        // 不同类型混在一起的 List 不走二进制
+        values.add(new ArrayList<>(List.of(new ContactsCache(), new ChatMessageCache())));
+        for (Object value : values) {
+            byte[] bytes = compact.serialize(value);
+            assertNotEquals(MAGIC, bytes[0], String.valueOf(value));
+            assertArrayEquals(json.serialize(value), bytes, String.valueOf(value));
+        }
+        // ZSET 成员等依赖 Long 序列化为纯数字
+        assertArrayEquals("123".getBytes(StandardCharsets.UTF_8), compact.serialize(123L));
+    }
+
+    @Test
+    void legacyJsonEntriesStayReadable() {
+        UserInfoCache user = UserInfoCache.builder().userId(1L).username("u").gender((byte) 1).build();
+        List<ContactsCache> contacts = new ArrayList<>(List.of(ContactsCache.builder().contactId(1L).friendId(2L).build()));
+
+        byte[] legacyUser = json.serialize(user);
+        byte[] legacyContacts = json.serialize(contacts);
+        assertNotEquals(MAGIC, legacyUser[0]);
+
+        assertEquals(user, compact.deserialize(legacyUser));
+        assertEquals(contacts, compact.deserialize(legacyContacts));
+    }
+
+    @Test
+    void jsonRollbackStillReadsCompactEntries() {
+        ChatMessageCache message = ChatMessageCache.builder().messageId(1L).senderId(2L).content("hi")
+                .messageType("TEXT").createTime(LocalDateTime.of(2026, 1, 1, 0, 0)).build();
+        byte[] written = compact.serialize(message);
+
+        assertEquals(message, json.deserialize(written));
+        // 回滚后新写入的是 JSON
+        assertNotEquals(MAGIC, json.serialize(message)[0]);
+    }
+
+    @Test
+    void unknownVersionOrTruncatedRecordIsRejected() {
+        byte[] bytes = compact.serialize(new ContactsCache(1L, 2L, "r"));
+
+        byte[] future = bytes.clone();
+        future[1] = (byte) 99;
+        assertThrows(SerializationException.class, () -> compact.deserialize(future));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(SerializationException.class, () -> compact.deserialize(truncated));
+    }
+}
@@ -0,0 +1,162 @@
+package com.telechat.websocket;
+
+import com.telechat.mapper.dao.ChatMessageDao;
+import com.telechat.mapper.dao.ConversationDao;
+import com.telechat.pojo.entity.ChatMessage;
+import com.telechat.properties.ChatProperties;
+import com.telechat.util.RedisTemplateUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量落库：瞬时错误一直重试，违反约束时逐条隔离
+ * <p>直接调用 flush，不启动写线程；退避间隔设为 1~2 毫秒</p>
+ */
+public class ChatMessageBatchWriterTest {
+
+    private final ChatMessageDao chatMessageDao = mock(ChatMessageDao.class);
+    private final ConversationDao conversationDao = mock(ConversationDao.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final RedisTemplateUtil redisTemplateUtil = mock(RedisTemplateUtil.class);
+    private final CounterPushCoalescer counterPushCoalescer = mock(CounterPushCoalescer.class);
+
+    private final ChatMessageBatchWriter writer = new ChatMessageBatchWriter();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ChatProperties properties = new ChatProperties();
+        properties.setWriteRetryInitialBackoffMs(1);
+        properties.setWriteRetryMaxBackoffMs(2);
+
+        // 事务模板直接执行回调
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+
+        ReflectionTestUtils.setField(writer, "chatMessageDao", chatMessageDao);
+        ReflectionTestUtils.setField(writer, "conversationDao", conversationDao);
+        ReflectionTestUtils.setField(writer, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(writer, "chatProperties", properties);
+        ReflectionTestUtils.setField(writer, "redisTemplateUtil", redisTemplateUtil);
+        ReflectionTestUtils.setField(writer, "counterPushCoalescer", counterPushCoalescer);
+        ReflectionTestUtils.setField(writer, "queue", new ArrayBlockingQueue<ChatMessage>(16));
+    }
+
+    private static ChatMessage message(long id) {
+        return ChatMessage.builder()
+                .id(id)
+                .conversationId(1L)
+                .senderId(100L)
+                .content("m" + id)
+                .messageType("TEXT")
+                .createTime(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void transientFailuresAreRetriedUntilTheDatabaseRecovers() {
+        List<ChatMessage> batch = List.of(message(1), message(2));
+        // 远超原先 3 次重试的上限
+        AtomicInteger failures = new AtomicInteger(20);
+        doAnswer(invocation -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new TransientDataAccessResourceException("connection refused");
+            }
+            return null;
+        }).when(chatMessageDao).insertBatch(anyList());
+
+        writer.flush(batch);
+
+        verify(chatMessageDao, times(21)).insertBatch(batch);
+        verify(conversationDao).updateLastMessageBatch(anyList());
+        // 缓存只在提交成功后更新一次
+        verify(redisTemplateUtil).pushRecentMessages(batch, new ChatProperties().getRecentCacheSize());
+        verify(chatMessageDao, never()).existsById(any());
+    }
+
+    @Test
+    void constraintViolationIsolatesBadRows() {
+        ChatMessage good = message(1);
+        ChatMessage bad = message(2);
+        ChatMessage alreadyWritten = message(3);
+        doAnswer(invocation -> {
+            List<ChatMessage> rows = invocation.getArgument(0);
+            if (rows.size() > 1 || rows.contains(bad) || rows.contains(alreadyWritten)) {
+                throw new DuplicateKeyException("duplicate");
+            }
+            return null;
+        }).when(chatMessageDao).insertBatch(anyList());
+        when(chatMessageDao.existsById(3L)).thenReturn(true);
+
+        writer.flush(List.of(good, bad, alreadyWritten));
+
+        // 整批 1 次 + 逐条 3 次，违反约束不重试
+        verify(chatMessageDao, times(4)).insertBatch(anyList());
+        // 已存在的消息 (之前的提交其实成功了) 同样更新缓存，坏消息丢弃
+        verify(redisTemplateUtil).pushRecentMessages(List.of(good, alreadyWritten), new ChatProperties().getRecentCacheSize());
+    }
+
+    @Test
+    void transientFailureWhileIsolatingRowsIsRetried() {
+        ChatMessage good = message(1);
+        ChatMessage bad = message(2);
+        AtomicInteger singleRowFailures = new AtomicInteger(2);
+        doAnswer(invocation -> {
+            List<ChatMessage> rows = invocation.getArgument(0);
+            if (rows.size() > 1 || rows.contains(bad)) {
+                throw new DuplicateKeyException("duplicate");
+            }
+            if (singleRowFailures.getAndDecrement() > 0) {
+                throw new TransientDataAccessResourceException("timeout");
+            }
+            return null;
+        }).when(chatMessageDao).insertBatch(anyList());
+
+        writer.flush(List.of(good, bad));
+
+        verify(chatMessageDao, times(3)).insertBatch(List.of(good));
+        verify(redisTemplateUtil).pushRecentMessages(List.of(good), new ChatProperties().getRecentCacheSize());
+    }
+
+    @Test
+    void cacheFailuresAfterCommitDoNotPropagate() {
+        List<ChatMessage> batch = List.of(message(1));
+        doAnswer(invocation -> {
+            throw new IllegalStateException("redis down");
+        }).when(redisTemplateUtil).pushRecentMessages(anyList(), anyInt());
+        doAnswer(invocation -> {
+            throw new IllegalStateException("redis down");
+        }).when(counterPushCoalescer).conversationUnread(any());
+
+        writer.flush(batch);
+
+        verify(chatMessageDao).insertBatch(batch);
+        // 前面的缓存更新失败不影响后续步骤
+        verify(counterPushCoalescer).conversationUnread(any());
+        verify(redisTemplateUtil).touchUserConversations(anyMap());
+    }
+}
@@ -0,0 +1,129 @@
+package com.telechat.websocket;
+
+import com.telechat.constant.RedisConstant;
+import com.telechat.properties.WebSocketProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 离线收件箱：补零成员的字典序、分页起点与按ID删除的参数
+ * <p>脚本调用由 RecordingTemplate 记录，不连接 Redis</p>
+ */
+public class OfflineMessageInboxTest {
+
+    private static final long USER_ID = 7L;
+
+    private final RecordingTemplate template = new RecordingTemplate();
+    private final OfflineMessageInbox inbox = new OfflineMessageInbox();
+
+    @BeforeEach
+    void setUp() {
+        WebSocketProperties properties = new WebSocketProperties();
+        properties.setOfflineInboxMaxSize(1000);
+        properties.setOfflineInboxTtlDays(7);
+        ReflectionTestUtils.setField(inbox, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(inbox, "webSocketProperties", properties);
+    }
+
+    @Test
+    void storeWritesPaddedMemberWithLimitAndTtl() {
+        inbox.store(USER_ID, 42L, "{\"a\":1}");
+
+        Call call = template.calls.get(0);
+        assertEquals(List.of(RedisConstant.USER_OFFLINE_INBOX + USER_ID), call.keys);
+        assertEquals(List.of("0000000000000000042:{\"a\":1}", "1000", String.valueOf(7 * 24 * 3600)), call.args);
+    }
+
+    @Test
+    void storeIgnoresMessageWithoutId() {
+        inbox.store(USER_ID, null, "{}");
+        assertTrue(template.calls.isEmpty());
+    }
+
+    @Test
+    void paddedMembersSortLexicallyInIdOrder() {
+        // score 全部为 0 时 ZSET 按成员字典序排列，补零后字典序与消息ID数值顺序一致
+        List<Long> ids = List.of(9L, 10L, 99L, 100L, 1_800_000_000_000_000_000L, 123_456_789_012_345_678L);
+        for (Long id : ids) {
+            inbox.store(USER_ID, id, "p" + id);
+        }
+        List<String> members = template.calls.stream().map(call -> (String) call.args.get(0)).collect(Collectors.toList());
+        List<String> lexical = new ArrayList<>(members);
+        lexical.sort(null);
+
+        List<String> numeric = ids.stream().sorted().map(id -> String.format("%019d", id) + ":p" + id).toList();
+        assertEquals(numeric, lexical);
+    }
+
+    @Test
+    void pageStartsAfterCursorAndSplitsOnFirstColon() {
+        template.reply = List.of("0000000000000000043:{\"t\":\"12:30\"}", "0000000000000000100:{}");
+
+        List<OfflineMessageInbox.OfflineMessage> page = inbox.page(USER_ID, 42L, 50);
+
+        assertEquals(List.of("[0000000000000000043", "50"), template.calls.get(0).args);
+        assertEquals(List.of(
+                new OfflineMessageInbox.OfflineMessage(43L, "{\"t\":\"12:30\"}"),
+                new OfflineMessageInbox.OfflineMessage(100L, "{}")
+        ), page);
+    }
+
+    @Test
+    void pageFromStartCoversWholeInbox() {
+        template.reply = List.of();
+        assertTrue(inbox.page(USER_ID, 0L, 100).isEmpty());
+        assertEquals("[0000000000000000001", template.calls.get(0).args.get(0));
+    }
+
+    @Test
+    void removePassesPaddedIds() {
+        inbox.remove(USER_ID, List.of(43L, 7L));
+
+        Call call = template.calls.get(0);
+        assertEquals(List.of(RedisConstant.USER_OFFLINE_INBOX + USER_ID), call.keys);
+        assertEquals(List.of("0000000000000000043", "0000000000000000007"), call.args);
+    }
+
+    @Test
+    void removeSkipsEmptyAndSwallowsRedisErrors() {
+        inbox.remove(USER_ID, List.of());
+        assertTrue(template.calls.isEmpty());
+
+        template.failure = new IllegalStateException("redis down");
+        assertDoesNotThrow(() -> inbox.remove(USER_ID, List.of(1L)));
+    }
+
+    private record Call(List<String> keys, List<Object> args) {
+    }
+
+    /**
+     * 只记录脚本调用的 StringRedisTemplate
+     */
+    private static final class RecordingTemplate extends StringRedisTemplate {
+        final List<Call> calls = new ArrayList<>();
+        Object reply;
+        RuntimeException failure;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            calls.add(new Call(keys, Arrays.asList(args)));
+            if (failure != null) {
+                throw failure;
+            }
+            return (T) reply;
+        }
+    }
+}
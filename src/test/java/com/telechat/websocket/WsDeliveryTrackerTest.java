@@ -0,0 +1,133 @@
+package com.telechat.websocket;
+
+import com.telechat.properties.WebSocketProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ACK 跟踪：时间轮到期、重传与确认的计数
+ * <p>时间轮每格 5 毫秒，用 Mockito 的 timeout/after 等待 tick 线程处理</p>
+ */
+public class WsDeliveryTrackerTest {
+
+    private static final long USER_ID = 7L;
+    private static final String PAYLOAD = "{\"type\":\"CHAT\"}";
+
+    private final TelechatWebSocketHandler handler = mock(TelechatWebSocketHandler.class);
+    private final OfflineMessageInbox inbox = mock(OfflineMessageInbox.class);
+    private final WebSocketSession session = mock(WebSocketSession.class);
+
+    private WsDeliveryTracker tracker;
+
+    private WsDeliveryTracker startTracker(long ackTimeoutMs, long ackMaxBackoffMs, int ackMaxRetries) {
+        WebSocketProperties properties = new WebSocketProperties();
+        properties.setAckTickMs(5);
+        properties.setAckWheelSize(16);
+        properties.setAckTimeoutMs(ackTimeoutMs);
+        properties.setAckMaxBackoffMs(ackMaxBackoffMs);
+        properties.setAckMaxRetries(ackMaxRetries);
+
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+
+        tracker = new WsDeliveryTracker();
+        ReflectionTestUtils.setField(tracker, "webSocketProperties", properties);
+        ReflectionTestUtils.setField(tracker, "webSocketHandler", handler);
+        ReflectionTestUtils.setField(tracker, "offlineMessageInbox", inbox);
+        tracker.start();
+        return tracker;
+    }
+
+    @AfterEach
+    void stop() {
+        if (tracker != null) {
+            tracker.stop();
+        }
+    }
+
+    @Test
+    void ackBeforeDeadlineCancelsRetransmit() {
+        startTracker(20, 40, 2);
+        tracker.track(session, USER_ID, 42L, PAYLOAD);
+        tracker.ack("s1", USER_ID, List.of(42L));
+
+        verify(inbox).remove(USER_ID, List.of(42L));
+        verify(handler, after(100).never()).retransmit(any(), any(), any());
+        verify(inbox, never()).store(any(), anyLong(), any());
+        assertEquals(0L, tracker.stats().get("pending"));
+        assertEquals(1L, tracker.stats().get("acked"));
+    }
+
+    @Test
+    void unackedMessageIsRetriedThenMovedToInbox() {
+        startTracker(10, 20, 2);
+        tracker.track(session, USER_ID, 42L, PAYLOAD);
+
+        verify(inbox, timeout(1000)).store(USER_ID, 42L, PAYLOAD);
+        verify(handler, after(50).times(2)).retransmit(session, USER_ID, PAYLOAD);
+        assertEquals(0L, tracker.stats().get("pending"));
+        assertEquals(2L, tracker.stats().get("retried"));
+        assertEquals(1L, tracker.stats().get("expired"));
+    }
+
+    @Test
+    void closedSessionExpiresWithoutRetransmit() {
+        startTracker(10, 20, 3);
+        when(session.isOpen()).thenReturn(false);
+        tracker.track(session, USER_ID, 42L, PAYLOAD);
+
+        verify(inbox, timeout(1000)).store(USER_ID, 42L, PAYLOAD);
+        verify(handler, never()).retransmit(any(), any(), any());
+        assertEquals(1L, tracker.stats().get("expired"));
+    }
+
+    @Test
+    void deadlineBeyondOneWheelTurnWaitsForRemainingRounds() {
+        // 16 格 * 5 毫秒 = 80 毫秒一圈，200 毫秒的超时需要多转两圈
+        startTracker(200, 200, 1);
+        tracker.track(session, USER_ID, 42L, PAYLOAD);
+
+        verify(handler, after(120).never()).retransmit(any(), any(), any());
+        verify(handler, timeout(1000)).retransmit(session, USER_ID, PAYLOAD);
+    }
+
+    @Test
+    void releaseMovesPendingToInbox() {
+        startTracker(1000, 1000, 3);
+        tracker.track(session, USER_ID, 1L, "a");
+        tracker.track(session, USER_ID, 2L, "b");
+        tracker.release("s1");
+
+        verify(inbox).store(USER_ID, 1L, "a");
+        verify(inbox).store(USER_ID, 2L, "b");
+        assertEquals(0L, tracker.stats().get("pending"));
+        // 已释放的消息在时间轮中不再处理
+        verify(handler, after(50).never()).retransmit(any(), any(), any());
+    }
+
+    @Test
+    void trackingSameMessageTwiceKeepsOnePending() {
+        startTracker(1000, 1000, 3);
+        tracker.track(session, USER_ID, 42L, PAYLOAD);
+        tracker.track(session, USER_ID, 42L, PAYLOAD);
+        assertEquals(1L, tracker.stats().get("pending"));
+
+        tracker.ack("s1", USER_ID, List.of(42L));
+        assertEquals(0L, tracker.stats().get("pending"));
+        assertEquals(1L, tracker.stats().get("acked"));
+    }
+}
@@ -0,0 +1,153 @@
+package com.telechat.websocket;
+
+import com.telechat.pojo.enums.WsOverflowPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 发送队列的三种溢出策略
+ * <p>写任务先收集起来不执行，队列才会被填满</p>
+ */
+public class WsOutboundSessionTest {
+
+    private static final int CAPACITY = 2;
+
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final WsOutboundSession.Listener listener = mock(WsOutboundSession.Listener.class);
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+    }
+
+    private WsOutboundSession outbound(WsOverflowPolicy policy) {
+        return new WsOutboundSession(session, 7L, CAPACITY, policy, tasks::add, listener);
+    }
+
+    private static WsOutboundSession.Frame reliable(long messageId) {
+        return WsOutboundSession.Frame.of(new TextMessage("m" + messageId), messageId, true, false);
+    }
+
+    private static WsOutboundSession.Frame transientFrame(String text) {
+        return WsOutboundSession.Frame.of(new TextMessage(text), null, false, true);
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    @Test
+    void closePolicyClosesAsSoonAsQueueIsFull() throws Exception {
+        WsOutboundSession outbound = outbound(WsOverflowPolicy.CLOSE);
+        WsOutboundSession.Frame first = reliable(1);
+        WsOutboundSession.Frame second = reliable(2);
+        WsOutboundSession.Frame overflow = transientFrame("typing");
+        assertTrue(outbound.enqueue(first));
+        assertTrue(outbound.enqueue(second));
+
+        // 即使是瞬时消息也不腾位置，直接断开
+        assertFalse(outbound.enqueue(overflow));
+        assertFalse(outbound.isOpen());
+        verify(listener).onUnsent(outbound, overflow);
+        verify(listener).onUnsent(outbound, first);
+        verify(listener).onUnsent(outbound, second);
+
+        runTasks();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).sendMessage(any());
+    }
+
+    @Test
+    void dropTransientThenCloseEvictsTransientBeforeClosing() throws Exception {
+        WsOutboundSession outbound = outbound(WsOverflowPolicy.DROP_TRANSIENT_THEN_CLOSE);
+        WsOutboundSession.Frame typing = transientFrame("typing");
+        WsOutboundSession.Frame first = reliable(1);
+        WsOutboundSession.Frame second = reliable(2);
+        assertTrue(outbound.enqueue(typing));
+        assertTrue(outbound.enqueue(first));
+
+        // 队列满：挤掉最早的瞬时消息，业务消息入队
+        assertTrue(outbound.enqueue(second));
+        verify(listener).onUnsent(outbound, typing);
+        assertTrue(outbound.isOpen());
+
+        // 新来的瞬时消息直接丢弃，连接保持
+        WsOutboundSession.Frame lateTyping = transientFrame("typing again");
+        assertFalse(outbound.enqueue(lateTyping));
+        verify(listener).onUnsent(outbound, lateTyping);
+        assertTrue(outbound.isOpen());
+
+        // 没有可挤掉的瞬时消息：断开
+        WsOutboundSession.Frame third = reliable(3);
+        assertFalse(outbound.enqueue(third));
+        verify(listener).onUnsent(outbound, third);
+        assertFalse(outbound.isOpen());
+
+        runTasks();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void dropTransientThenRejectKeepsConnectionOpen() throws Exception {
+        WsOutboundSession outbound = outbound(WsOverflowPolicy.DROP_TRANSIENT_THEN_REJECT);
+        WsOutboundSession.Frame first = reliable(1);
+        WsOutboundSession.Frame second = reliable(2);
+        WsOutboundSession.Frame rejected = reliable(3);
+        assertTrue(outbound.enqueue(first));
+        assertTrue(outbound.enqueue(second));
+
+        assertFalse(outbound.enqueue(rejected));
+        verify(listener).onUnsent(outbound, rejected);
+        verify(listener, never()).onUnsent(outbound, first);
+        assertTrue(outbound.isOpen());
+        assertEquals(1L, outbound.stats().getDropped());
+
+        // 已入队的帧照常按顺序写出
+        runTasks();
+        verify(session, never()).close(any());
+        InOrder order = inOrder(session);
+        order.verify(session).sendMessage(first.message());
+        order.verify(session).sendMessage(second.message());
+        verify(listener).onSent(outbound, first);
+        verify(listener).onSent(outbound, second);
+    }
+
+    @Test
+    void writeFailureShutsDownAndReportsBroken() throws Exception {
+        WsOutboundSession outbound = outbound(WsOverflowPolicy.DROP_TRANSIENT_THEN_CLOSE);
+        WsOutboundSession.Frame first = reliable(1);
+        WsOutboundSession.Frame second = reliable(2);
+        doThrow(new IOException("broken pipe")).when(session).sendMessage(first.message());
+        outbound.enqueue(first);
+        outbound.enqueue(second);
+
+        runTasks();
+        verify(listener).onUnsent(outbound, first);
+        verify(listener).onUnsent(outbound, second);
+        verify(listener).onBroken(outbound);
+        assertFalse(outbound.isOpen());
+    }
+}